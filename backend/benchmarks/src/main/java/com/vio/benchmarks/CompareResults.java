@@ -0,0 +1,93 @@
+package com.vio.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Diffs two JMH JSON result files (-rf json) benchmark by benchmark, matched on name and
+ * parameters. A change counts as a regression when the score got worse by more than the
+ * threshold and by more than the two error margins together, so run-to-run noise is not
+ * reported. Exits with 1 when there is a regression, for use in a release script.
+ * <pre>
+ * java -cp target/benchmarks.jar com.vio.benchmarks.CompareResults baseline.json results.json [threshold-percent]
+ * </pre>
+ */
+public final class CompareResults {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+        List<String> regressions = new ArrayList<>();
+
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        current.forEach((key, score) -> {
+            Score before = baseline.get(key);
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", key, "-", score.value(), "new", score.unit());
+                return;
+            }
+
+            double change = (score.value() - before.value()) / before.value() * 100;
+            // lower is better for time per operation, higher for throughput
+            double worse = score.higherIsBetter() ? -change : change;
+            boolean regressed = worse > threshold && Math.abs(score.value() - before.value()) > score.error() + before.error();
+            if (regressed) {
+                regressions.add(key);
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", key, before.value(), score.value(), change, score.unit(), regressed ? "  REGRESSION" : "");
+        });
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-90s %14.3f %14s %9s%n", key, baseline.get(key).value(), "-", "removed"));
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%n%d benchmarks regressed by more than %.1f%%%n", regressions.size(), threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").asDouble();
+            scores.put(key(run), new Score(
+                    metric.path("score").asDouble(),
+                    // NaN when a run had a single iteration
+                    Double.isNaN(error) ? 0 : error,
+                    metric.path("scoreUnit").asText(),
+                    "thrpt".equals(run.path("mode").asText())));
+        }
+        return scores;
+    }
+
+    // benchmark name without the package, parameters sorted by name
+    private static String key(JsonNode run) {
+        String benchmark = run.path("benchmark").asText().replace("com.vio.benchmarks.", "");
+        Map<String, String> params = new TreeMap<>();
+        run.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+        String mode = run.path("mode").asText();
+        return params.isEmpty() ? benchmark + " (" + mode + ")" : benchmark + " " + params + " (" + mode + ")";
+    }
+
+    private record Score(double value, double error, String unit, boolean higherIsBetter) {
+    }
+}
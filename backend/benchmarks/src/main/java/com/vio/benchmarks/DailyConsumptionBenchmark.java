@@ -0,0 +1,181 @@
+package com.vio.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vio.monitoring_service.dto.DailyConsumptionResponse;
+import com.vio.monitoring_service.model.Measurement;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Daily consumption response assembly: the previous entity list + fillMissingHours path against
+ * the 24-slot array filled from (hour, consumption, count) rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DailyConsumptionBenchmark {
+
+    @Param({"6", "24"})
+    private int hoursWithReadings;
+
+    private final LocalDate date = LocalDate.of(2025, 1, 15);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private List<Measurement> measurements;
+    private int[] hours;
+    private double[] consumption;
+    private int[] counts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        measurements = new ArrayList<>();
+        hours = new int[hoursWithReadings];
+        consumption = new double[hoursWithReadings];
+        counts = new int[hoursWithReadings];
+
+        int step = 24 / hoursWithReadings;
+        for (int i = 0; i < hoursWithReadings; i++) {
+            hours[i] = i * step;
+            consumption[i] = random.nextDouble() * 5;
+            counts[i] = 6;
+            measurements.add(Measurement.builder()
+                    .deviceId(1L)
+                    .date(date)
+                    .hour(hours[i])
+                    .hourlyConsumption(consumption[i])
+                    .measurementCount(counts[i])
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public Object legacyAssemble() {
+        return legacyResponse(measurements);
+    }
+
+    @Benchmark
+    public Object arrayAssemble() {
+        return arrayResponse();
+    }
+
+    @Benchmark
+    public byte[] legacyAssembleAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(legacyResponse(measurements));
+    }
+
+    @Benchmark
+    public byte[] arrayAssembleAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(arrayResponse());
+    }
+
+    private DailyConsumptionResponse arrayResponse() {
+        // same work as the row callback of MeasurementRepository.forEachHour
+        DailyConsumptionResponse response = new DailyConsumptionResponse(1L, date);
+        for (int i = 0; i < hours.length; i++) {
+            response.addHour(hours[i], consumption[i], counts[i]);
+        }
+        return response;
+    }
+
+    // the assembly MonitoringService.getDailyConsumption used before the array rewrite
+    private LegacyDailyResponse legacyResponse(List<Measurement> measurements) {
+        List<LegacyHourlyResponse> hourlyData = measurements.stream()
+                .map(m -> new LegacyHourlyResponse(m.getHour(), m.getHourlyConsumption(), m.getMeasurementCount()))
+                .collect(Collectors.toList());
+
+        Double totalDailyConsumption = measurements.stream()
+                .mapToDouble(Measurement::getHourlyConsumption)
+                .sum();
+
+        hourlyData = fillMissingHours(hourlyData);
+        return new LegacyDailyResponse(1L, date, hourlyData, totalDailyConsumption);
+    }
+
+    static List<LegacyHourlyResponse> fillMissingHours(List<LegacyHourlyResponse> hourlyData) {
+        List<LegacyHourlyResponse> completeData = new ArrayList<>();
+
+        for (int hour = 0; hour < 24; hour++) {
+            final int currentHour = hour;
+            LegacyHourlyResponse existingData = hourlyData.stream()
+                    .filter(h -> h.getHour() == currentHour)
+                    .findFirst()
+                    .orElse(null);
+
+            if (existingData != null) {
+                completeData.add(existingData);
+            } else {
+                completeData.add(new LegacyHourlyResponse(currentHour, 0.0, 0));
+            }
+        }
+
+        return completeData;
+    }
+
+    public static class LegacyHourlyResponse {
+        private final Integer hour;
+        private final Double consumption;
+        private final Integer measurementCount;
+
+        public LegacyHourlyResponse(Integer hour, Double consumption, Integer measurementCount) {
+            this.hour = hour;
+            this.consumption = consumption;
+            this.measurementCount = measurementCount;
+        }
+
+        public Integer getHour() {
+            return hour;
+        }
+
+        public Double getConsumption() {
+            return consumption;
+        }
+
+        public Integer getMeasurementCount() {
+            return measurementCount;
+        }
+    }
+
+    public static class LegacyDailyResponse {
+        private final Long deviceId;
+        private final LocalDate date;
+        private final List<LegacyHourlyResponse> hourlyData;
+        private final Double totalDailyConsumption;
+
+        public LegacyDailyResponse(Long deviceId, LocalDate date, List<LegacyHourlyResponse> hourlyData, Double totalDailyConsumption) {
+            this.deviceId = deviceId;
+            this.date = date;
+            this.hourlyData = hourlyData;
+            this.totalDailyConsumption = totalDailyConsumption;
+        }
+
+        public Long getDeviceId() {
+            return deviceId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public List<LegacyHourlyResponse> getHourlyData() {
+            return hourlyData;
+        }
+
+        public Double getTotalDailyConsumption() {
+            return totalDailyConsumption;
+        }
+    }
+}
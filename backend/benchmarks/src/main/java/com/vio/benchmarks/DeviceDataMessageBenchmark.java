@@ -0,0 +1,56 @@
+package com.vio.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vio.load_balancing.util.DeviceDataScanner;
+import com.vio.monitoring_service.event.DeviceDataMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of one device reading as sent by the producers, and the token scan
+ * the load balancer uses instead of binding the payload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeviceDataMessageBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectReader reader = objectMapper.readerFor(DeviceDataMessage.class);
+    private final ObjectWriter writer = objectMapper.writerFor(DeviceDataMessage.class);
+
+    private DeviceDataMessage message;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws Exception {
+        message = new DeviceDataMessage(LocalDateTime.of(2025, 1, 15, 13, 40), 4217L, 0.4375);
+        body = writer.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public DeviceDataMessage deserialize() throws Exception {
+        return reader.readValue(body);
+    }
+
+    @Benchmark
+    public DeviceDataScanner.Fields scanRoutingFields() throws Exception {
+        return DeviceDataScanner.scan(body);
+    }
+}
@@ -0,0 +1,195 @@
+package com.vio.benchmarks;
+
+import com.vio.monitoring_service.model.AlertRule;
+import com.vio.monitoring_service.model.IngestWatermark;
+import com.vio.monitoring_service.model.MonitoredDevice;
+import com.vio.monitoring_service.repository.AlertRuleRepository;
+import com.vio.monitoring_service.repository.DailyConsumptionRepository;
+import com.vio.monitoring_service.repository.IngestWatermarkRepository;
+import com.vio.monitoring_service.repository.MeasurementRepository;
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyTotalConsumer;
+import com.vio.monitoring_service.repository.MonitoredDeviceRepository;
+import com.vio.monitoring_service.repository.MonthlyConsumptionRepository;
+import com.vio.monitoring_service.util.TimestampWindow;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HashMap-backed stand-ins for the monitoring repositories used on the ingest path. Only the
+ * methods the ingest path calls are implemented, with the same effect on the stored rows as
+ * the JDBC versions; any other repository method fails, so a benchmark cannot silently measure
+ * a path that skips its writes.
+ */
+final class InMemoryRepositories {
+    // returned by handlers for repository methods the ingest path does not call
+    private static final Object UNSUPPORTED = new Object();
+    // the defaults of app.dedup
+    private static final long DEDUP_HORIZON_MS = 21_600_000L;
+    private static final int DEDUP_MAX_TIMESTAMPS = 4096;
+
+    private final Map<HourKey, double[]> hourly = new HashMap<>();
+    private final Map<DayKey, double[]> daily = new HashMap<>();
+    private final Map<MonthKey, double[]> monthly = new HashMap<>();
+    // committed timestamps per device, trimmed to the dedup horizon as the JDBC version does
+    private final Map<Long, TimestampWindow> watermarks = new HashMap<>();
+    private final List<MonitoredDevice> devices = new ArrayList<>();
+    private final List<AlertRule> alertRules = new ArrayList<>();
+
+    void addDevice(long deviceId, long userId, double maxConsumption) {
+        devices.add(new MonitoredDevice(deviceId, userId, maxConsumption));
+    }
+
+    void addAlertRule(AlertRule rule) {
+        alertRules.add(rule);
+    }
+
+    // drops the written rows, keeps devices, rules and watermarks
+    void clearRows() {
+        hourly.clear();
+        daily.clear();
+        monthly.clear();
+    }
+
+    int hourlyRows() {
+        return hourly.size();
+    }
+
+    MeasurementRepository measurements() {
+        return repository(MeasurementRepository.class, (method, args) -> switch (method) {
+            case "upsertAll" -> {
+                for (HourlyDelta delta : deltas(args[0])) {
+                    add(hourly, new HourKey(delta.deviceId(), delta.date(), delta.hour()), delta);
+                }
+                yield null;
+            }
+            case "forEachHourlyTotal" -> {
+                HourlyTotalConsumer consumer = (HourlyTotalConsumer) args[1];
+                for (HourlyDelta key : deltas(args[0])) {
+                    double[] row = hourly.get(new HourKey(key.deviceId(), key.date(), key.hour()));
+                    if (row != null) {
+                        consumer.accept(key.deviceId(), key.date(), key.hour(), row[0], (int) row[1]);
+                    }
+                }
+                yield null;
+            }
+            default -> UNSUPPORTED;
+        });
+    }
+
+    DailyConsumptionRepository dailyConsumption() {
+        return repository(DailyConsumptionRepository.class, (method, args) -> switch (method) {
+            case "addAll" -> {
+                for (HourlyDelta delta : deltas(args[0])) {
+                    add(daily, new DayKey(delta.deviceId(), delta.date()), delta);
+                }
+                yield null;
+            }
+            default -> UNSUPPORTED;
+        });
+    }
+
+    MonthlyConsumptionRepository monthlyConsumption() {
+        return repository(MonthlyConsumptionRepository.class, (method, args) -> switch (method) {
+            case "addAll" -> {
+                for (HourlyDelta delta : deltas(args[0])) {
+                    add(monthly, new MonthKey(delta.deviceId(), YearMonth.from(delta.date())), delta);
+                }
+                yield null;
+            }
+            default -> UNSUPPORTED;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    IngestWatermarkRepository ingestWatermarks() {
+        return repository(IngestWatermarkRepository.class, (method, args) -> switch (method) {
+            case "advanceAll" -> {
+                ((Map<Long, long[]>) args[0]).forEach((deviceId, timestamps) -> {
+                    TimestampWindow window = watermarks.computeIfAbsent(deviceId, id -> new TimestampWindow(DEDUP_HORIZON_MS, DEDUP_MAX_TIMESTAMPS));
+                    for (long timestamp : timestamps) {
+                        window.add(timestamp);
+                    }
+                });
+                yield null;
+            }
+            case "findAllById" -> {
+                List<IngestWatermark> found = new ArrayList<>();
+                for (Long deviceId : (Iterable<Long>) args[0]) {
+                    TimestampWindow window = watermarks.get(deviceId);
+                    if (window != null) {
+                        long[] committed = window.toArray();
+                        LocalDateTime mark = LocalDateTime.ofInstant(Instant.ofEpochMilli(committed[committed.length - 1]), ZoneOffset.UTC);
+                        found.add(new IngestWatermark(deviceId, mark, TimestampWindow.encode(committed)));
+                    }
+                }
+                yield found;
+            }
+            default -> UNSUPPORTED;
+        });
+    }
+
+    MonitoredDeviceRepository monitoredDevices() {
+        return repository(MonitoredDeviceRepository.class, (method, args) -> "findAll".equals(method) && args == null ? List.copyOf(devices) : UNSUPPORTED);
+    }
+
+    AlertRuleRepository alertRules() {
+        return repository(AlertRuleRepository.class, (method, args) -> "findAll".equals(method) && args == null ? List.copyOf(alertRules) : UNSUPPORTED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<HourlyDelta> deltas(Object arg) {
+        return (Collection<HourlyDelta>) arg;
+    }
+
+    private static <K> void add(Map<K, double[]> rows, K key, HourlyDelta delta) {
+        double[] row = rows.computeIfAbsent(key, k -> new double[2]);
+        row[0] += delta.consumption();
+        row[1] += delta.measurementCount();
+    }
+
+    private static <T> T repository(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                case "toString":
+                    return "InMemory" + type.getSimpleName();
+                default:
+                    break;
+            }
+            Object result = handler.invoke(method.getName(), args);
+            if (result == UNSUPPORTED) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not implemented in memory");
+            }
+            return result;
+        });
+        return type.cast(proxy);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private record HourKey(long deviceId, LocalDate date, int hour) {
+    }
+
+    private record DayKey(long deviceId, LocalDate date) {
+    }
+
+    private record MonthKey(long deviceId, YearMonth month) {
+    }
+}
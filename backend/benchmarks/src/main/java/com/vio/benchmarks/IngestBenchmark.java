@@ -0,0 +1,243 @@
+package com.vio.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rabbitmq.client.Channel;
+import com.vio.monitoring_service.consumer.DeviceDataConsumer;
+import com.vio.monitoring_service.event.DeviceDataMessage;
+import com.vio.monitoring_service.model.AlertRule;
+import com.vio.monitoring_service.producer.AlertPublisher;
+import com.vio.monitoring_service.producer.LiveConsumptionPublisher;
+import com.vio.monitoring_service.rules.RuleEngine;
+import com.vio.monitoring_service.service.AnomalyDetector;
+import com.vio.monitoring_service.service.DailyResponseCache;
+import com.vio.monitoring_service.service.DeviceRegistry;
+import com.vio.monitoring_service.service.MeasurementAggregator;
+import com.vio.monitoring_service.service.OverconsumptionDetector;
+import com.vio.monitoring_service.service.ReadingDeduplicator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One ingest batch as the data listener receives it: {@link DeviceDataConsumer} decodes the
+ * messages, checks registry, dedup, rules and anomalies, buffers them in the
+ * {@link MeasurementAggregator} and the flush writes closed hour windows to in-memory
+ * repositories. {@code aggregate} runs only the aggregator on already decoded readings.
+ * Readings move 10 minutes forward per device and batch, so hour windows close at the pace
+ * they do in production. Alerts never fire (the device limits are out of reach) and live
+ * totals are off, so neither broker is touched.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBenchmark {
+    // the default of app.ingest.batch-size
+    private static final int BATCH_SIZE = 200;
+    private static final int READING_MINUTES = 10;
+
+    @Param({"100", "1000"})
+    private int devices;
+
+    // READING is the default rule set, ALL adds an hourly total, a sliding sum and an EWMA rule to it
+    @Param({"READING", "ALL"})
+    private String rules;
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    // producers send ISO timestamps, which is what the converter parses on the listener
+    private final ObjectMapper producerMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private final Channel channel = channel();
+
+    private InMemoryRepositories repositories;
+    private MeasurementAggregator aggregator;
+    private DeviceDataConsumer consumer;
+    private Random random;
+    private long cursor;
+    private long deliveryTag;
+
+    private List<Message> messages;
+    private DeviceDataMessage[] readings;
+    private long[] tags;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        repositories = new InMemoryRepositories();
+        for (long deviceId = 1; deviceId <= devices; deviceId++) {
+            repositories.addDevice(deviceId, deviceId % 50 + 1, 1_000_000);
+        }
+        if ("ALL".equals(rules)) {
+            repositories.addAlertRule(AlertRule.builder().ruleType("READING").build());
+            repositories.addAlertRule(AlertRule.builder().ruleType("HOURLY_TOTAL").build());
+            repositories.addAlertRule(AlertRule.builder().ruleType("SLIDING_SUM").windowMinutes(60).build());
+            repositories.addAlertRule(AlertRule.builder().ruleType("EWMA").alpha(0.3).build());
+        }
+
+        DeviceRegistry deviceRegistry = new DeviceRegistry(repositories.monitoredDevices(), meterRegistry);
+        deviceRegistry.init();
+
+        ReadingDeduplicator deduplicator = new ReadingDeduplicator(repositories.ingestWatermarks(), meterRegistry);
+        Wiring.set(deduplicator, "enabled", true);
+        Wiring.set(deduplicator, "horizonMs", 21_600_000L);
+        Wiring.set(deduplicator, "maxTimestamps", 4096);
+        deduplicator.init();
+
+        RuleEngine ruleEngine = new RuleEngine(repositories.alertRules());
+        ruleEngine.init();
+
+        // never started and without capacity, an alert that does fire is refused instead of queued
+        AlertPublisher alertPublisher = new AlertPublisher(new RabbitTemplate(), meterRegistry);
+        Wiring.set(alertPublisher, "queueCapacity", 0);
+
+        OverconsumptionDetector overconsumptionDetector = new OverconsumptionDetector(alertPublisher, meterRegistry);
+        Wiring.set(overconsumptionDetector, "rearmRatio", 0.9);
+        Wiring.set(overconsumptionDetector, "cooldownMs", 1_800_000L);
+        Wiring.set(overconsumptionDetector, "summaryIntervalMs", 3_600_000L);
+        Wiring.set(overconsumptionDetector, "idleTimeoutMs", 21_600_000L);
+        overconsumptionDetector.init();
+
+        AnomalyDetector anomalyDetector = new AnomalyDetector(alertPublisher, meterRegistry);
+        Wiring.set(anomalyDetector, "enabled", true);
+        Wiring.set(anomalyDetector, "minSamples", 12);
+        Wiring.set(anomalyDetector, "maxSamples", 500);
+        Wiring.set(anomalyDetector, "minStddev", 0.01);
+        Wiring.set(anomalyDetector, "deviationSigma", 4.0);
+        Wiring.set(anomalyDetector, "jumpSigma", 5.0);
+        Wiring.set(anomalyDetector, "jumpMaxGapMs", 1_800_000L);
+        Wiring.set(anomalyDetector, "flatlineReadings", 12);
+        Wiring.set(anomalyDetector, "cooldownMs", 3_600_000L);
+        anomalyDetector.init();
+
+        DailyResponseCache dailyResponseCache = new DailyResponseCache(new ObjectMapper(), meterRegistry);
+        Wiring.set(dailyResponseCache, "maxSizeMb", 64L);
+        Wiring.set(dailyResponseCache, "recentTtlSeconds", 15L);
+        Wiring.set(dailyResponseCache, "closedTtlMinutes", 60L);
+        dailyResponseCache.init();
+
+        LiveConsumptionPublisher livePublisher = new LiveConsumptionPublisher(new RabbitTemplate(), repositories.measurements());
+        Wiring.set(livePublisher, "enabled", false);
+        Wiring.set(livePublisher, "broadcastInvalidations", false);
+
+        aggregator = new MeasurementAggregator(repositories.measurements(), repositories.dailyConsumption(),
+                repositories.monthlyConsumption(), repositories.ingestWatermarks(), deduplicator,
+                new TransactionTemplate(new NoOpTransactionManager()), dailyResponseCache, livePublisher, meterRegistry);
+        Wiring.set(aggregator, "maxPendingReadings", 1000);
+        Wiring.set(aggregator, "allowedLatenessMs", 120_000L);
+        Wiring.set(aggregator, "maxOpenMs", 10_000L);
+        Wiring.set(aggregator, "maxUnackedMessages", 800L);
+        Wiring.set(aggregator, "watermarkIdleMs", 3_600_000L);
+        aggregator.init();
+
+        consumer = new DeviceDataConsumer(deviceRegistry, aggregator, deduplicator, ruleEngine,
+                overconsumptionDetector, anomalyDetector, converter);
+
+        random = new Random(42);
+        cursor = 0;
+        deliveryTag = 0;
+    }
+
+    // rows written in one iteration are dropped before the next, the maps would otherwise grow for the whole run
+    @Setup(Level.Iteration)
+    public void clearRows() {
+        repositories.clearRows();
+    }
+
+    // a run that stopped writing, e.g. because readings were dropped as duplicates, must not report a time
+    @TearDown(Level.Iteration)
+    public void checkRowsWritten() {
+        if (repositories.hourlyRows() == 0) {
+            throw new IllegalStateException("No hourly rows were written during the iteration");
+        }
+    }
+
+    // readings must be new every batch or deduplication would drop them, building them is not measured
+    @Setup(Level.Invocation)
+    public void nextBatch() throws Exception {
+        messages = new ArrayList<>(BATCH_SIZE);
+        readings = new DeviceDataMessage[BATCH_SIZE];
+        tags = new long[BATCH_SIZE];
+
+        for (int i = 0; i < BATCH_SIZE; i++, cursor++) {
+            long deviceId = cursor % devices + 1;
+            LocalDateTime timestamp = start.plusMinutes(cursor / devices * READING_MINUTES);
+            DeviceDataMessage reading = new DeviceDataMessage(timestamp, deviceId, 0.2 + random.nextDouble() * 0.6);
+
+            MessageProperties properties = new MessageProperties();
+            properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+            properties.setDeliveryTag(++deliveryTag);
+            messages.add(new Message(producerMapper.writeValueAsBytes(reading), properties));
+            readings[i] = reading;
+            tags[i] = deliveryTag;
+        }
+    }
+
+    @Benchmark
+    public void consumeBatch() {
+        consumer.handleDeviceData(messages, channel);
+        aggregator.scheduledFlush();
+    }
+
+    @Benchmark
+    public void aggregate() {
+        for (int i = 0; i < readings.length; i++) {
+            DeviceDataMessage reading = readings[i];
+            aggregator.record(reading.getDeviceId(), reading.getTimestamp(), reading.getMeasurementValue(), channel, tags[i]);
+        }
+        aggregator.deferAck(channel, tags[tags.length - 1]);
+        aggregator.scheduledFlush();
+    }
+
+    // acks are accepted and dropped
+    private static Channel channel() {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class}, (self, method, args) -> switch (method.getName()) {
+            case "isOpen" -> true;
+            case "hashCode" -> System.identityHashCode(self);
+            case "equals" -> self == args[0];
+            case "toString" -> "BenchmarkChannel";
+            case "basicAck" -> null;
+            default -> throw new UnsupportedOperationException("Channel." + method.getName());
+        });
+    }
+
+    // the flush runs in a transaction template, the in-memory repositories need no transaction
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.vio.benchmarks;
+
+import com.vio.load_balancing.strategy.ConsistentHashingStrategy;
+import com.vio.load_balancing.strategy.RoundRobinStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replica selection per routed reading. Round robin is measured on its sticky path, every
+ * device was assigned once during setup as it would be after the first reading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBalancingBenchmark {
+    // a power of two, the cursor wraps with a mask
+    private static final int DEVICE_COUNT = 1 << 14;
+
+    @Param({"3", "10"})
+    private int replicas;
+
+    private ConsistentHashingStrategy consistentHashing;
+    private RoundRobinStrategy roundRobin;
+    private long[] deviceIds;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        consistentHashing = Wiring.set(new ConsistentHashingStrategy(), "virtualNodes", 160);
+
+        roundRobin = new RoundRobinStrategy();
+        Wiring.set(roundRobin, "devicesPerReplica", 3);
+        Wiring.set(roundRobin, "maxEntries", 1_000_000);
+        Wiring.set(roundRobin, "idleTimeoutHours", 168L);
+        Wiring.set(roundRobin, "snapshotFile", "");
+        roundRobin.init();
+
+        Random random = new Random(42);
+        deviceIds = new long[DEVICE_COUNT];
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            deviceIds[i] = 1 + random.nextInt(1_000_000);
+            roundRobin.selectReplica(deviceIds[i], replicas);
+        }
+        // the ring is built once per replica count, not on the measured path
+        consistentHashing.ring(replicas);
+    }
+
+    @Benchmark
+    public int consistentHashing() {
+        return consistentHashing.selectReplica(nextDevice(), replicas);
+    }
+
+    @Benchmark
+    public int roundRobin() {
+        return roundRobin.selectReplica(nextDevice(), replicas);
+    }
+
+    private long nextDevice() {
+        long deviceId = deviceIds[cursor];
+        cursor = (cursor + 1) & (DEVICE_COUNT - 1);
+        return deviceId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.vio.benchmarks;
+
+import com.vio.customer_support.service.RuleBasedResponseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat rule matching. A message without a match runs every pattern before the chat falls back
+ * to the AI service, a matching one stops at its rule, wherever the map iterates it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleBasedResponseBenchmark {
+
+    @Param({
+            "Hello there",
+            "Where can I check energy usage for last week?",
+            "My fridge started making a strange noise after the power cut yesterday evening"
+    })
+    private String message;
+
+    private RuleBasedResponseService service;
+
+    @Setup
+    public void setUp() {
+        service = new RuleBasedResponseService();
+    }
+
+    @Benchmark
+    public String getResponse() {
+        return service.getResponse(message);
+    }
+}
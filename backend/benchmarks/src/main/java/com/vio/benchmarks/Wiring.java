@@ -0,0 +1,29 @@
+package com.vio.benchmarks;
+
+import java.lang.reflect.Field;
+
+/**
+ * Sets the {@code @Value} fields of service classes built without a Spring context, so a
+ * benchmark runs the production code with the same configuration the service would get.
+ */
+final class Wiring {
+
+    private Wiring() {
+    }
+
+    static <T> T set(T target, String fieldName, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return target;
+            } catch (NoSuchFieldException e) {
+                // declared further up
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set " + fieldName + " of " + target.getClass().getSimpleName(), e);
+            }
+        }
+        throw new IllegalArgumentException(target.getClass().getSimpleName() + " has no field " + fieldName);
+    }
+}
@@ -15,6 +15,10 @@ public class RabbitMQConfig {
     public static final String OVERCONSUMPTION_QUEUE = "overconsumption.alert.queue";
     public static final String OVERCONSUMPTION_ROUTING_KEY = "overconsumption.alert";
 
+    public static final String ANOMALY_EXCHANGE = "anomaly.exchange";
+    public static final String ANOMALY_QUEUE = "anomaly.alert.queue";
+    public static final String ANOMALY_ROUTING_KEY = "anomaly.detected";
+
     @Bean
     public TopicExchange overconsumptionExchange() {
         return new TopicExchange(OVERCONSUMPTION_EXCHANGE, true, false);
@@ -33,6 +37,24 @@ public class RabbitMQConfig {
                 .with(OVERCONSUMPTION_ROUTING_KEY);
     }
 
+    @Bean
+    public TopicExchange anomalyExchange() {
+        return new TopicExchange(ANOMALY_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue anomalyQueue() {
+        return new Queue(ANOMALY_QUEUE, true);
+    }
+
+    @Bean
+    public Binding anomalyBinding() {
+        return BindingBuilder
+                .bind(anomalyQueue())
+                .to(anomalyExchange())
+                .with(ANOMALY_ROUTING_KEY);
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
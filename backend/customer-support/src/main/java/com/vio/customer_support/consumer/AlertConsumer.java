@@ -1,6 +1,7 @@
 package com.vio.customer_support.consumer;
 
 import com.vio.customer_support.config.RabbitMQConfig;
+import com.vio.customer_support.event.AnomalyEvent;
 import com.vio.customer_support.event.OverconsumptionAlert;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,4 +34,25 @@ public class AlertConsumer {
             log.error("❌ Failed to send alert via WebSocket", e);
         }
     }
-}
\ No newline at end of file
+
+    // anomalies share the alerts destination, the client tells them apart by anomalyType
+    @RabbitListener(queues = RabbitMQConfig.ANOMALY_QUEUE)
+    public void handleAnomaly(AnomalyEvent anomaly) {
+        log.info("Received {} anomaly for device {} and user {}", anomaly.getAnomalyType(), anomaly.getDeviceId(), anomaly.getUserId());
+        if (anomaly.getUserId() == null) {
+            log.warn("Anomaly for device {} has no user, not forwarding it", anomaly.getDeviceId());
+            return;
+        }
+
+        try {
+            messagingTemplate.convertAndSendToUser(
+                    anomaly.getUserId().toString(),
+                    "/queue/alerts",
+                    anomaly
+            );
+            log.info("✅ Sent anomaly to user {}", anomaly.getUserId());
+        } catch (Exception e) {
+            log.error("❌ Failed to send anomaly via WebSocket", e);
+        }
+    }
+}
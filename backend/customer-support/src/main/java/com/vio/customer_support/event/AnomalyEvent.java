@@ -0,0 +1,21 @@
+package com.vio.customer_support.event;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AnomalyEvent {
+    private Long deviceId;
+    private Long userId;
+    private String anomalyType;
+    private Double value;
+    private Double expected;
+    private Double deviation;
+    private LocalDateTime readingTimestamp;
+    private LocalDateTime timestamp;
+    private String message;
+}
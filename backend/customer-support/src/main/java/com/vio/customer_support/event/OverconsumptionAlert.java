@@ -11,9 +11,14 @@ import java.time.LocalDateTime;
 public class OverconsumptionAlert {
     private Long deviceId;
     private Long userId;
+    private String type;
+    private String rule;
     private Double currentConsumption;
     private Double maxConsumption;
     private Double exceededBy;
+    private Double peakConsumption;
+    private Integer readingsOverLimit;
+    private LocalDateTime exceededSince;
     private LocalDateTime timestamp;
     private String message;
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.vio.load_balancing.config;
 
+import com.vio.load_balancing.strategy.AdaptiveStrategy;
 import com.vio.load_balancing.strategy.ConsistentHashingStrategy;
 import com.vio.load_balancing.strategy.LoadBalancingStrategy;
 import com.vio.load_balancing.strategy.RoundRobinStrategy;
@@ -17,6 +18,7 @@ public class LoadBalancingConfig {
 
     private final ConsistentHashingStrategy consistentHashingStrategy;
     private final RoundRobinStrategy roundRobinStrategy;
+    private final AdaptiveStrategy adaptiveStrategy;
 
     @Value("${app.load-balancing.strategy:consistent-hashing}")
     private String strategyType;
@@ -31,6 +33,10 @@ public class LoadBalancingConfig {
                 strategy = roundRobinStrategy;
                 log.info("Using Round Robin load balancing strategy");
                 break;
+            case "adaptive":
+                strategy = adaptiveStrategy;
+                log.info("Using Adaptive (queue-depth aware) load balancing strategy");
+                break;
             case "consistent-hashing":
             default:
                 strategy = consistentHashingStrategy;
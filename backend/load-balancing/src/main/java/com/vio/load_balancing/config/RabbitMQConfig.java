@@ -1,6 +1,7 @@
 package com.vio.load_balancing.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
@@ -11,6 +12,8 @@ import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RabbitMQConfig {
+    // ingest queues and their bindings follow the live replica count, see ReplicaManager
+    public static final String INGEST_QUEUE_PREFIX = "ingest.queue.";
 
     @Value("${app.rabbitmq.queue.device-data}")
     private String deviceDataQueue;
@@ -27,9 +30,11 @@ public class RabbitMQConfig {
     @Value("${app.rabbitmq.routing-key.ingest-prefix}")
     private String ingestRoutingKeyPrefix;
 
-    @Value("${app.monitoring.replicas:3}")
-    private int totalReplicas;
+    @Value("${app.forwarding.batch-size:200}")
+    private int forwardingBatchSize;
 
+    @Value("${app.forwarding.receive-timeout-ms:100}")
+    private long forwardingReceiveTimeout;
 
     @Bean
     public Queue deviceDataQueue() {
@@ -54,27 +59,6 @@ public class RabbitMQConfig {
         return new TopicExchange(ingestExchange, true, false);
     }
 
-    @Bean
-    public Declarables ingestQueuesAndBindings() {
-        Declarable[] declarables = new Declarable[totalReplicas * 2]; // queues + bindings
-
-        for (int i = 1; i <= totalReplicas; i++) {
-            String queueName = "ingest.queue." + i;
-            String routingKey = ingestRoutingKeyPrefix + i;
-
-            Queue queue = new Queue(queueName, true);
-            Binding binding = BindingBuilder
-                    .bind(queue)
-                    .to(ingestExchange())
-                    .with(routingKey);
-
-            declarables[(i - 1) * 2] = queue;
-            declarables[(i - 1) * 2 + 1] = binding;
-        }
-
-        return new Declarables(declarables);
-    }
-
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -84,6 +68,22 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        // unroutable publishes come back as returns instead of being dropped
+        rabbitTemplate.setMandatory(true);
         return rabbitTemplate;
     }
+
+    @Bean(name = "forwardingListenerContainerFactory")
+    public SimpleRabbitListenerContainerFactory forwardingListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        // upstream messages are acked only after every forwarded copy was confirmed
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(forwardingBatchSize);
+        factory.setReceiveTimeout(forwardingReceiveTimeout);
+        factory.setPrefetchCount(forwardingBatchSize * 2);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.vio.load_balancing.consumer;
 
-import com.vio.load_balancing.event.DeviceDataMessage;
+import com.rabbitmq.client.Channel;
 import com.vio.load_balancing.service.LoadBalancingService;
+import com.vio.load_balancing.util.DeviceDataScanner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -14,16 +20,38 @@ public class DeviceDataConsumer {
 
     private final LoadBalancingService loadBalancingService;
 
-    @RabbitListener(queues = "${app.rabbitmq.queue.device-data}")
-    public void consumeDeviceData(DeviceDataMessage message) {
-        log.info("Received device data: deviceId={}, timestamp={}, value={}", message.getDeviceId(), message.getTimestamp(), message.getMeasurementValue());
+    @RabbitListener(queues = "${app.rabbitmq.queue.device-data}", containerFactory = "forwardingListenerContainerFactory")
+    public void consumeDeviceData(List<Message> messages, Channel channel) throws IOException {
+        List<Message> routable = new ArrayList<>(messages.size());
+        List<DeviceDataScanner.Fields> fields = new ArrayList<>(messages.size());
+
+        for (Message message : messages) {
+            try {
+                fields.add(DeviceDataScanner.scan(message.getBody(), message.getMessageProperties()));
+                routable.add(message);
+            } catch (IOException | RuntimeException e) {
+                // a payload without a readable device id cannot be routed, retrying will not help
+                log.warn("Dropping unroutable device data: {}", e.getMessage());
+            }
+        }
 
+        long lastDeliveryTag = messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag();
+        boolean forwarded;
         try {
-            // Route to appropriate replica
-            loadBalancingService.routeMessage(message);
-        } catch (Exception e) {
-            log.error("❌ Failed to process device data for device {}: {}", message.getDeviceId(), e.getMessage(), e);
-            throw e;
+            forwarded = routable.isEmpty() || loadBalancingService.forwardAll(routable, fields);
+        } catch (RuntimeException e) {
+            // manual acks: the container does not nack on a listener exception, the batch would stay unacked
+            log.error("❌ Forwarding {} device readings failed: {}", routable.size(), e.getMessage(), e);
+            forwarded = false;
+        }
+
+        if (forwarded) {
+            channel.basicAck(lastDeliveryTag, true);
+            log.debug("Forwarded and acknowledged {} device readings", routable.size());
+        } else {
+            // the whole batch is redelivered; readings already confirmed downstream may arrive twice
+            channel.basicNack(lastDeliveryTag, true, true);
+            log.warn("Forwarding failed, requeued {} device readings", messages.size());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.vio.load_balancing.controller;
+
+import com.vio.load_balancing.dto.ReplicaStatusResponse;
+import com.vio.load_balancing.dto.ScaleRequest;
+import com.vio.load_balancing.service.ReplicaManager;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/load-balancing/replicas")
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicaAdminController {
+
+    private final ReplicaManager replicaManager;
+
+    @GetMapping
+    public ResponseEntity<ReplicaStatusResponse> getStatus() {
+        return ResponseEntity.ok(replicaManager.status());
+    }
+
+    @PutMapping
+    public ResponseEntity<ReplicaStatusResponse> scale(@RequestBody @Valid ScaleRequest request) {
+        log.info("PUT /api/load-balancing/replicas replicas={}", request.replicas());
+        return ResponseEntity.ok(replicaManager.scaleTo(request.replicas()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.vio.load_balancing.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+public record ErrorResponse(
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime timestamp,
+        int status,
+        String error,
+        String message,
+        String path
+) {
+}
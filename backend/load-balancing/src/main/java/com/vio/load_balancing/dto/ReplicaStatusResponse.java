@@ -0,0 +1,12 @@
+package com.vio.load_balancing.dto;
+
+import java.util.Set;
+
+public record ReplicaStatusResponse(
+        int replicas,
+        int previousReplicas,
+        boolean transitionInProgress,
+        String switchoverHour,
+        Set<Integer> retiringReplicas
+) {
+}
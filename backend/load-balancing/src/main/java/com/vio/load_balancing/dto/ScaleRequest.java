@@ -0,0 +1,13 @@
+package com.vio.load_balancing.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record ScaleRequest(
+        @NotNull(message = "Replica count is required")
+        @Min(value = 1, message = "At least one replica is required")
+        @Max(value = 64, message = "At most 64 replicas are supported")
+        Integer replicas
+) {
+}
@@ -0,0 +1,7 @@
+package com.vio.load_balancing.handler;
+
+public class ScalingException extends RuntimeException {
+    public ScalingException(String message) {
+        super(message);
+    }
+}
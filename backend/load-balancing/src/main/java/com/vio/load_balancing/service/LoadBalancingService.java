@@ -1,22 +1,34 @@
 package com.vio.load_balancing.service;
 
-import com.vio.load_balancing.event.DeviceDataMessage;
-import com.vio.load_balancing.strategy.LoadBalancingStrategy;
+import com.vio.load_balancing.util.DeviceDataScanner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Forwards batches of raw device readings to the monitoring replicas. Messages for the same ingest
+ * queue are published back to back on one channel, with at most maxOutstanding publishes waiting
+ * for a broker confirm at any time.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class LoadBalancingService {
     private final RabbitTemplate rabbitTemplate;
-    private final LoadBalancingStrategy loadBalancingStrategy;
-
-    @Value("${app.monitoring.replicas:3}")
-    private int totalReplicas;
+    private final ReplicaManager replicaManager;
 
     @Value("${app.rabbitmq.exchange.ingest}")
     private String ingestExchange;
@@ -24,15 +36,75 @@ public class LoadBalancingService {
     @Value("${app.rabbitmq.routing-key.ingest-prefix}")
     private String ingestRoutingKeyPrefix;
 
-    public void routeMessage(DeviceDataMessage message) {
+    @Value("${app.forwarding.max-outstanding-confirms:500}")
+    private int maxOutstanding;
+
+    @Value("${app.forwarding.confirm-timeout-ms:5000}")
+    private long confirmTimeout;
+
+    /**
+     * Returns true once every message was confirmed by the broker and routed to a queue,
+     * false if any publish was nacked, returned or not confirmed in time.
+     */
+    public boolean forwardAll(List<Message> messages, List<DeviceDataScanner.Fields> fields) {
+        List<List<Message>> byReplica = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            int replica = replicaManager.selectReplica(fields.get(i).deviceId(), fields.get(i).eventSecond());
+            while (byReplica.size() < replica) {
+                byReplica.add(new ArrayList<>());
+            }
+            byReplica.get(replica - 1).add(messages.get(i));
+        }
+
+        Boolean confirmed = rabbitTemplate.invoke(operations -> {
+            Deque<CorrelationData> outstanding = new ArrayDeque<>();
+            for (int replica = 1; replica <= byReplica.size(); replica++) {
+                String routingKey = ingestRoutingKeyPrefix + replica;
+                for (Message message : byReplica.get(replica - 1)) {
+                    if (outstanding.size() >= maxOutstanding && !awaitConfirm(outstanding.poll())) {
+                        return false;
+                    }
+
+                    // the original body and properties are republished as received, nothing is converted
+                    message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+                    CorrelationData correlation = new CorrelationData(routingKey + ":" + message.getMessageProperties().getDeliveryTag());
+                    operations.send(ingestExchange, routingKey, message, correlation);
+                    outstanding.add(correlation);
+                }
+                log.debug("Forwarded {} readings to replica {}", byReplica.get(replica - 1).size(), replica);
+            }
+
+            while (!outstanding.isEmpty()) {
+                if (!awaitConfirm(outstanding.poll())) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(confirmed);
+    }
+
+    private boolean awaitConfirm(CorrelationData correlation) {
         try {
-            int replicaNumber = loadBalancingStrategy.selectReplica(message, totalReplicas);
-            String routingKey = ingestRoutingKeyPrefix + replicaNumber;
-            rabbitTemplate.convertAndSend(ingestExchange, routingKey, message);
-            log.info("✅ Routed device {} data to replica {} (queue: {})", message.getDeviceId(), replicaNumber, routingKey);
-        } catch (Exception e) {
-            log.error("❌ Error routing message for device {}: {}", message.getDeviceId(), e.getMessage(), e);
-            throw new RuntimeException("Failed to route message", e);
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeout, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck()) {
+                log.error("❌ Broker nacked forwarded reading {}: {}", correlation.getId(), confirm.getReason());
+                return false;
+            }
+            if (correlation.getReturned() != null) {
+                log.error("❌ Forwarded reading {} was not routed: {}", correlation.getId(), correlation.getReturned().getReplyText());
+                return false;
+            }
+            return true;
+        } catch (TimeoutException e) {
+            log.error("❌ No confirm for forwarded reading {} within {} ms", correlation.getId(), confirmTimeout);
+            return false;
+        } catch (ExecutionException e) {
+            log.error("❌ Confirm for forwarded reading {} failed: {}", correlation.getId(), e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
-}
\ No newline at end of file
+}
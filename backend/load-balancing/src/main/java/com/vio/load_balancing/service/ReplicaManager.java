@@ -0,0 +1,266 @@
+package com.vio.load_balancing.service;
+
+import com.vio.load_balancing.config.RabbitMQConfig;
+import com.vio.load_balancing.dto.ReplicaStatusResponse;
+import com.vio.load_balancing.handler.ScalingException;
+import com.vio.load_balancing.strategy.LoadBalancingStrategy;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the number of monitoring replicas messages are spread over and changes it at runtime.
+ * A change only takes effect from the next event-time hour: readings of the current hour keep the
+ * old mapping, so no device-hour bucket is split between two replicas. Ingest queues and bindings
+ * are declared here for the replicas messages can currently be routed to, at startup, on scaling
+ * and again whenever the broker connection is re-established. Queues of removed replicas are
+ * unbound and deleted once the transition has drained, and are not declared again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicaManager {
+    private static final long NO_EVENT = Long.MIN_VALUE;
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final AmqpAdmin amqpAdmin;
+    private final ConnectionFactory connectionFactory;
+    private final LoadBalancingStrategy loadBalancingStrategy;
+
+    @Value("${app.monitoring.replicas:3}")
+    private int initialReplicas;
+
+    @Value("${app.rabbitmq.exchange.ingest}")
+    private String ingestExchange;
+
+    @Value("${app.rabbitmq.routing-key.ingest-prefix}")
+    private String ingestRoutingKeyPrefix;
+
+    @Value("${app.scaling.drain-grace-seconds:300}")
+    private long drainGraceSeconds;
+
+    @Value("${app.scaling.replicas-file:}")
+    private String replicasFile;
+
+    // latest reading timestamp seen, in the producers' clock, as seconds
+    private final AtomicLong latestEventSecond = new AtomicLong(NO_EVENT);
+    private final Set<Integer> retiringReplicas = ConcurrentHashMap.newKeySet();
+
+    private volatile Topology topology;
+    private volatile boolean declarationPending;
+
+    @PostConstruct
+    public void init() {
+        int replicas = readReplicasFile().orElse(initialReplicas);
+        topology = new Topology(replicas, replicas, NO_EVENT, null);
+        declareCurrentReplicas();
+        // a broker that lost its queues gets those of the current topology back, never retired ones
+        connectionFactory.addConnectionListener(connection -> declareCurrentReplicas());
+        log.info("Routing device data over {} monitoring replicas", replicas);
+    }
+
+    public int selectReplica(long deviceId, long eventSecond) {
+        Topology current = topology;
+        if (eventSecond > latestEventSecond.get()) {
+            latestEventSecond.accumulateAndGet(eventSecond, Math::max);
+        }
+
+        int replicas = current.inTransition() && eventSecond < current.switchoverSecond()
+                ? current.previousReplicas()
+                : current.replicas();
+        return loadBalancingStrategy.selectReplica(deviceId, replicas);
+    }
+
+    public synchronized ReplicaStatusResponse scaleTo(int replicas) {
+        Topology current = topology;
+        if (current.inTransition()) {
+            throw new ScalingException("Scaling from " + current.previousReplicas() + " to " + current.replicas() + " replicas is still draining");
+        }
+        if (replicas == current.replicas()) {
+            return status();
+        }
+
+        for (int replica = 1; replica <= replicas; replica++) {
+            retiringReplicas.remove(replica);
+            declareReplica(replica);
+        }
+        for (int replica = replicas + 1; replica <= current.replicas(); replica++) {
+            retiringReplicas.add(replica);
+        }
+
+        long latest = latestEventSecond.get();
+        if (latest == NO_EVENT) {
+            // nothing routed yet, no bucket can be split
+            topology = new Topology(replicas, replicas, NO_EVENT, null);
+        } else {
+            long switchover = (Math.floorDiv(latest, SECONDS_PER_HOUR) + 1) * SECONDS_PER_HOUR;
+            topology = new Topology(replicas, current.replicas(), switchover, Instant.now());
+        }
+
+        writeReplicasFile(replicas);
+        if (topology.inTransition()) {
+            log.info("Scaling monitoring replicas from {} to {}, new mapping applies from event time {}", current.replicas(), replicas, switchoverTime(topology));
+        } else {
+            log.info("Scaled monitoring replicas from {} to {}", current.replicas(), replicas);
+        }
+        return status();
+    }
+
+    public ReplicaStatusResponse status() {
+        Topology current = topology;
+        return new ReplicaStatusResponse(
+                current.replicas(),
+                current.previousReplicas(),
+                current.inTransition(),
+                current.inTransition() ? switchoverTime(current).toString() : null,
+                new TreeSet<>(retiringReplicas)
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${app.scaling.check-interval-ms:30000}")
+    public void maintain() {
+        if (declarationPending) {
+            declareCurrentReplicas();
+        }
+        completeTransition();
+        retireDrainedReplicas();
+        applyReplicasFile();
+    }
+
+    private synchronized void completeTransition() {
+        Topology current = topology;
+        if (!current.inTransition()) {
+            return;
+        }
+
+        boolean eventTimePassed = latestEventSecond.get() >= current.switchoverSecond() + drainGraceSeconds;
+        // without traffic event time stands still, fall back to the wall clock
+        boolean wallClockPassed = Instant.now().isAfter(current.startedAt().plusSeconds(SECONDS_PER_HOUR + drainGraceSeconds));
+
+        if (eventTimePassed || wallClockPassed) {
+            topology = new Topology(current.replicas(), current.replicas(), NO_EVENT, null);
+            log.info("✅ Scaling to {} replicas completed", current.replicas());
+        }
+    }
+
+    private void retireDrainedReplicas() {
+        if (topology.inTransition()) {
+            return;
+        }
+
+        for (Integer replica : new ArrayList<>(retiringReplicas)) {
+            try {
+                amqpAdmin.removeBinding(binding(replica));
+
+                // the retiring replica keeps consuming until its queue is empty
+                QueueInformation info = amqpAdmin.getQueueInfo(queueName(replica));
+                if (info != null && info.getMessageCount() > 0) {
+                    log.info("Ingest queue {} still holds {} messages, retrying later", queueName(replica), info.getMessageCount());
+                    continue;
+                }
+
+                amqpAdmin.deleteQueue(queueName(replica));
+                retiringReplicas.remove(replica);
+                log.info("✅ Retired ingest queue {}", queueName(replica));
+            } catch (AmqpException e) {
+                log.warn("Could not retire ingest queue {}: {}", queueName(replica), e.getMessage());
+            }
+        }
+    }
+
+    private void applyReplicasFile() {
+        Optional<Integer> configured = readReplicasFile();
+        if (configured.isPresent() && configured.get() != topology.replicas() && !topology.inTransition()) {
+            log.info("Replica count changed in {} to {}", replicasFile, configured.get());
+            scaleTo(configured.get());
+        }
+    }
+
+    private Optional<Integer> readReplicasFile() {
+        if (replicasFile == null || replicasFile.isBlank()) {
+            return Optional.empty();
+        }
+
+        Path path = Path.of(replicasFile);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        try {
+            int replicas = Integer.parseInt(Files.readString(path).trim());
+            return replicas >= 1 ? Optional.of(replicas) : Optional.empty();
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Ignoring unreadable replicas file {}: {}", replicasFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeReplicasFile(int replicas) {
+        if (replicasFile == null || replicasFile.isBlank()) {
+            return;
+        }
+
+        try {
+            Files.writeString(Path.of(replicasFile), Integer.toString(replicas));
+        } catch (IOException e) {
+            log.warn("Could not persist replica count to {}: {}", replicasFile, e.getMessage());
+        }
+    }
+
+    // until the switchover the old mapping still routes to the replicas being removed; not synchronized,
+    // the connection listener calls it while the connection factory holds its own lock
+    private void declareCurrentReplicas() {
+        Topology current = topology;
+        try {
+            for (int replica = 1; replica <= Math.max(current.replicas(), current.previousReplicas()); replica++) {
+                declareReplica(replica);
+            }
+            declarationPending = false;
+        } catch (AmqpException e) {
+            log.warn("Could not declare ingest queues yet, retrying later: {}", e.getMessage());
+            declarationPending = true;
+        }
+    }
+
+    private void declareReplica(int replica) {
+        amqpAdmin.declareQueue(new Queue(queueName(replica), true));
+        amqpAdmin.declareBinding(binding(replica));
+    }
+
+    private Binding binding(int replica) {
+        return new Binding(queueName(replica), Binding.DestinationType.QUEUE, ingestExchange, ingestRoutingKeyPrefix + replica, null);
+    }
+
+    private static String queueName(int replica) {
+        return RabbitMQConfig.INGEST_QUEUE_PREFIX + replica;
+    }
+
+    private static LocalDateTime switchoverTime(Topology topology) {
+        return LocalDateTime.ofEpochSecond(topology.switchoverSecond(), 0, ZoneOffset.UTC);
+    }
+
+    private record Topology(int replicas, int previousReplicas, long switchoverSecond, Instant startedAt) {
+        boolean inTransition() {
+            return replicas != previousReplicas;
+        }
+    }
+}
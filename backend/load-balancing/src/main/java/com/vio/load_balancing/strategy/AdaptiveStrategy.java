@@ -0,0 +1,250 @@
+package com.vio.load_balancing.strategy;
+
+import com.vio.load_balancing.config.RabbitMQConfig;
+import com.vio.load_balancing.util.DeviceAssignmentTable;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue-depth aware routing. Devices keep the replica they were first assigned to; only newly seen
+ * devices are placed, starting from their consistent-hash replica and moving away from replicas whose
+ * ingest queue is lagging, to the replica that drains its backlog soonest at its sampled consumption
+ * rate. In bounded-load mode a replica also accepts no more than (1 + epsilon) times the average
+ * number of devices. Assignments live in a bounded table and are forgotten once idle.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveStrategy implements LoadBalancingStrategy {
+    private final ConsistentHashingStrategy consistentHashingStrategy;
+    private final AmqpAdmin amqpAdmin;
+
+    @Value("${app.load-balancing.adaptive.mode:shed}")
+    private String mode;
+
+    @Value("${app.load-balancing.adaptive.lag-high-watermark:5000}")
+    private long lagHighWatermark;
+
+    @Value("${app.load-balancing.adaptive.lag-low-watermark:1000}")
+    private long lagLowWatermark;
+
+    @Value("${app.load-balancing.adaptive.epsilon:0.25}")
+    private double epsilon;
+
+    @Value("${app.load-balancing.assignments.max-entries:1000000}")
+    private int maxEntries;
+
+    @Value("${app.load-balancing.assignments.idle-timeout-hours:168}")
+    private long idleTimeoutHours;
+
+    @Value("${app.monitoring.replicas:3}")
+    private int initialReplicas;
+
+    // all guarded by this; per replica arrays are indexed by replica number, slot 0 unused, and grow with the replica count
+    private DeviceAssignmentTable assignments;
+    private boolean fullWarned;
+    private int[] assignedDevices;
+    private long[] published;
+    private long[] depth;
+    private double[] drainRate;
+    private boolean[] lagging;
+
+    // only touched by the sampling thread
+    private long[] lastPublished = new long[0];
+    private long[] lastDepth = new long[0];
+    private long lastSampleNanos;
+
+    private volatile int knownReplicas;
+
+    @PostConstruct
+    public synchronized void init() {
+        assignments = new DeviceAssignmentTable(maxEntries);
+        int slots = Math.max(1, initialReplicas) + 1;
+        assignedDevices = new int[slots];
+        published = new long[slots];
+        depth = new long[slots];
+        drainRate = new double[slots];
+        lagging = new boolean[slots];
+    }
+
+    @Override
+    public synchronized int selectReplica(long deviceId, int totalReplicas) {
+        knownReplicas = totalReplicas;
+        ensureCapacity(totalReplicas);
+        int minute = currentMinute();
+        int assignedReplica = assignments.get(deviceId, minute);
+
+        int replica;
+        if (assignedReplica != DeviceAssignmentTable.NO_REPLICA && assignedReplica <= totalReplicas) {
+            replica = assignedReplica;
+        } else {
+            replica = place(deviceId, totalReplicas);
+            if (assignments.put(deviceId, replica, minute)) {
+                if (assignedReplica != DeviceAssignmentTable.NO_REPLICA) {
+                    assignedDevices[assignedReplica]--;
+                }
+                assignedDevices[replica]++;
+                log.info("Device {} assigned to replica {} using adaptive routing ({})", deviceId, replica, mode);
+            } else {
+                if (!fullWarned) {
+                    // the device is placed again on every message until idle ones are evicted
+                    log.warn("Device assignment table is full ({} devices), new devices are not remembered until idle ones are evicted", assignments.maxEntries());
+                    fullWarned = true;
+                }
+                log.debug("Device {} routed to replica {} using adaptive routing ({}) without an assignment", deviceId, replica, mode);
+            }
+        }
+
+        published[replica]++;
+        return replica;
+    }
+
+    private int place(long deviceId, int totalReplicas) {
+        HashRing ring = consistentHashingStrategy.ring(totalReplicas);
+        int start = ring.indexFor(HashRing.hash(deviceId));
+
+        if ("bounded-load".equalsIgnoreCase(mode)) {
+            int totalAssigned = 0;
+            for (int replica = 1; replica <= totalReplicas; replica++) {
+                totalAssigned += assignedDevices[replica];
+            }
+            int cap = (int) Math.ceil((1 + epsilon) * (totalAssigned + 1) / totalReplicas);
+
+            // walk clockwise to the first replica with room that is keeping up
+            for (int step = 0; step < ring.size(); step++) {
+                int replica = ring.replicaAt((start + step) % ring.size());
+                if (assignedDevices[replica] < cap && !lagging[replica]) {
+                    return replica;
+                }
+            }
+            // every replica with room is lagging, the one that catches up first takes the device
+            int best = DeviceAssignmentTable.NO_REPLICA;
+            for (int replica = 1; replica <= totalReplicas; replica++) {
+                if (assignedDevices[replica] < cap && (best == DeviceAssignmentTable.NO_REPLICA || backlogSeconds(replica) < backlogSeconds(best))) {
+                    best = replica;
+                }
+            }
+            return best != DeviceAssignmentTable.NO_REPLICA ? best : ring.replicaAt(start);
+        }
+
+        int preferred = ring.replicaAt(start);
+        if (!lagging[preferred]) {
+            return preferred;
+        }
+        return soonestDrained(totalReplicas, preferred);
+    }
+
+    // the healthy replica with the shortest backlog, the preferred one if every replica is lagging
+    private int soonestDrained(int totalReplicas, int fallback) {
+        int best = fallback;
+        for (int replica = 1; replica <= totalReplicas; replica++) {
+            if (!lagging[replica] && (best == fallback || backlogSeconds(replica) < backlogSeconds(best))) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+
+    // time to consume the queued messages at the sampled rate, a queue that is not drained never empties
+    private double backlogSeconds(int replica) {
+        if (depth[replica] == 0) {
+            return 0;
+        }
+        return drainRate[replica] > 0 ? depth[replica] / drainRate[replica] : Double.MAX_VALUE;
+    }
+
+    private void ensureCapacity(int totalReplicas) {
+        if (totalReplicas < assignedDevices.length) {
+            return;
+        }
+        int slots = Math.max(totalReplicas + 1, assignedDevices.length << 1);
+        assignedDevices = Arrays.copyOf(assignedDevices, slots);
+        published = Arrays.copyOf(published, slots);
+        depth = Arrays.copyOf(depth, slots);
+        drainRate = Arrays.copyOf(drainRate, slots);
+        lagging = Arrays.copyOf(lagging, slots);
+    }
+
+    @Scheduled(fixedDelayString = "${app.load-balancing.assignments.snapshot-interval-ms:60000}")
+    public synchronized void evictIdle() {
+        int evicted = assignments.evictIdle(currentMinute() - (int) TimeUnit.HOURS.toMinutes(idleTimeoutHours));
+        if (evicted > 0) {
+            Arrays.fill(assignedDevices, 0);
+            assignments.countPerReplica(assignedDevices);
+            fullWarned = false;
+            log.info("Evicted {} idle adaptive device assignments, {} remain", evicted, assignments.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.load-balancing.adaptive.sample-interval-ms:5000}")
+    public void sampleQueues() {
+        int replicas = knownReplicas;
+        if (replicas == 0) {
+            return;
+        }
+        if (lastDepth.length <= replicas) {
+            lastDepth = Arrays.copyOf(lastDepth, replicas + 1);
+            lastPublished = Arrays.copyOf(lastPublished, replicas + 1);
+        }
+
+        long now = System.nanoTime();
+        double seconds = lastSampleNanos == 0 ? 0 : (now - lastSampleNanos) / 1_000_000_000.0;
+        lastSampleNanos = now;
+
+        for (int replica = 1; replica <= replicas; replica++) {
+            String queueName = RabbitMQConfig.INGEST_QUEUE_PREFIX + replica;
+            QueueInformation info;
+            try {
+                // passive declare, does not create the queue
+                info = amqpAdmin.getQueueInfo(queueName);
+            } catch (AmqpException e) {
+                log.warn("Could not sample ingest queue {}: {}", queueName, e.getMessage());
+                continue;
+            }
+            if (info == null) {
+                continue;
+            }
+
+            long currentDepth = info.getMessageCount();
+            int consumers = info.getConsumerCount();
+            synchronized (this) {
+                long currentPublished = published[replica];
+                // messages consumed per second: routed to the queue minus what it grew by
+                double rate = seconds == 0 ? 0 : ((currentPublished - lastPublished[replica]) - (currentDepth - lastDepth[replica])) / seconds;
+                if (seconds > 0) {
+                    drainRate[replica] = consumers == 0 ? 0 : Math.max(0, rate);
+                }
+
+                // hysteresis: a replica is marked above the high watermark and cleared only below the low one
+                if (!lagging[replica] && (currentDepth > lagHighWatermark || consumers == 0)) {
+                    lagging[replica] = true;
+                    log.warn("Replica {} is lagging: depth={}, consumers={}, drain rate={}/s", replica, currentDepth, consumers, String.format("%.1f", rate));
+                } else if (lagging[replica] && currentDepth < lagLowWatermark && consumers > 0) {
+                    lagging[replica] = false;
+                    log.info("Replica {} caught up: depth={}, drain rate={}/s", replica, currentDepth, String.format("%.1f", rate));
+                }
+
+                depth[replica] = currentDepth;
+                lastDepth[replica] = currentDepth;
+                lastPublished[replica] = currentPublished;
+                if (log.isDebugEnabled()) {
+                    log.debug("Replica {} queue depth={}, consumers={}, drain rate={}/s", replica, currentDepth, consumers, String.format("%.1f", drainRate[replica]));
+                }
+            }
+        }
+    }
+
+    private static int currentMinute() {
+        return (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+}
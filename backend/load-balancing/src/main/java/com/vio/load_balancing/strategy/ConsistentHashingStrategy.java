@@ -1,43 +1,43 @@
 package com.vio.load_balancing.strategy;
 
-import com.vio.load_balancing.event.DeviceDataMessage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Slf4j
 public class ConsistentHashingStrategy implements LoadBalancingStrategy {
 
-    @Override
-    public int selectReplica(DeviceDataMessage message, int totalReplicas) {
-        try {
-            // Use device ID as the key for hashing
-            String key = String.valueOf(message.getDeviceId());
-
-            // Calculate MD5 hash
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] hashBytes = md.digest(key.getBytes(StandardCharsets.UTF_8));
-
-            // Convert first 4 bytes to int
-            int hash = 0;
-            for (int i = 0; i < 4; i++) {
-                hash = (hash << 8) | (hashBytes[i] & 0xFF);
-            }
-
-            // Make hash positive and map to replica (1 to N)
-            int replica = (Math.abs(hash) % totalReplicas) + 1;
+    @Value("${app.load-balancing.virtual-nodes:160}")
+    private int virtualNodes;
 
-            log.debug("Device {} mapped to replica {} using consistent hashing", message.getDeviceId(), replica);
+    // one ring per replica count, built on first use and reused for every message afterwards
+    private final Map<Integer, HashRing> rings = new ConcurrentHashMap<>();
 
-            return replica;
+    @Override
+    public int selectReplica(long deviceId, int totalReplicas) {
+        int replica = ring(totalReplicas).replicaFor(deviceId);
+        // runs for every message, the arguments are only boxed when the line is logged
+        if (log.isDebugEnabled()) {
+            log.debug("Device {} mapped to replica {} using consistent hashing", deviceId, replica);
+        }
+        return replica;
+    }
 
-        } catch (NoSuchAlgorithmException e) {
-            log.error("MD5 algorithm not found, falling back to simple modulo", e);
-            return (int) ((message.getDeviceId() % totalReplicas) + 1);
+    public HashRing ring(int totalReplicas) {
+        HashRing ring = rings.get(totalReplicas);
+        if (ring == null) {
+            ring = HashRing.build(totalReplicas, virtualNodes);
+            HashRing existing = rings.putIfAbsent(totalReplicas, ring);
+            if (existing != null) {
+                ring = existing;
+            } else {
+                log.info("Built consistent hash ring for {} replicas with {} virtual nodes each", totalReplicas, virtualNodes);
+            }
         }
+        return ring;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.vio.load_balancing.strategy;
+
+import com.vio.load_balancing.util.MurmurHash3;
+
+import java.util.Arrays;
+
+/**
+ * Immutable consistent-hash ring. Every replica owns {@code virtualNodes} points, kept in a
+ * sorted primitive array; a key belongs to the first point clockwise from its hash.
+ */
+public final class HashRing {
+    private final long[] points;
+    private final int[] owners;
+    private final int replicaCount;
+
+    private HashRing(long[] points, int[] owners, int replicaCount) {
+        this.points = points;
+        this.owners = owners;
+        this.replicaCount = replicaCount;
+    }
+
+    public static HashRing build(int replicaCount, int virtualNodes) {
+        if (replicaCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Hash ring needs at least one replica and one virtual node");
+        }
+
+        int size = replicaCount * virtualNodes;
+        long[] packed = new long[size];
+        long[] hashes = new long[size];
+
+        for (int replica = 1; replica <= replicaCount; replica++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                int index = (replica - 1) * virtualNodes + node;
+                // a virtual node's position depends only on (replica, node), so existing points never move
+                packed[index] = ((long) replica << 32) | node;
+                hashes[index] = MurmurHash3.hash64(packed[index]);
+            }
+        }
+
+        Integer[] sortOrder = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            sortOrder[i] = i;
+        }
+        Arrays.sort(sortOrder, (a, b) -> Long.compare(hashes[a], hashes[b]));
+
+        long[] points = new long[size];
+        int[] owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[sortOrder[i]];
+            owners[i] = (int) (packed[sortOrder[i]] >>> 32);
+        }
+
+        return new HashRing(points, owners, replicaCount);
+    }
+
+    public static long hash(long key) {
+        return MurmurHash3.hash64(key);
+    }
+
+    public int replicaFor(long key) {
+        return owners[indexFor(hash(key))];
+    }
+
+    // index of the first point at or after the hash, wrapping around the ring
+    public int indexFor(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    public int replicaAt(int index) {
+        return owners[index];
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    public int replicaCount() {
+        return replicaCount;
+    }
+}
@@ -1,7 +1,5 @@
 package com.vio.load_balancing.strategy;
 
-import com.vio.load_balancing.event.DeviceDataMessage;
-
 public interface LoadBalancingStrategy {
-    int selectReplica(DeviceDataMessage message, int totalReplicas);
+    int selectReplica(long deviceId, int totalReplicas);
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.vio.load_balancing.strategy;
 
-import com.vio.load_balancing.event.DeviceDataMessage;
+import com.vio.load_balancing.util.DeviceAssignmentTable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
@@ -14,15 +20,32 @@ public class RoundRobinStrategy implements LoadBalancingStrategy {
     @Value("${app.load-balancing.devices-per-replica:3}")
     private int devicesPerReplica;
 
-    // track which replica each device is assigned to
-    private final Map<Long, Integer> deviceToReplicaMap = new ConcurrentHashMap<>();
+    @Value("${app.load-balancing.assignments.max-entries:1000000}")
+    private int maxEntries;
+
+    @Value("${app.load-balancing.assignments.idle-timeout-hours:168}")
+    private long idleTimeoutHours;
+
+    @Value("${app.load-balancing.assignments.snapshot-file:}")
+    private String snapshotFile;
+
+    // track which replica each device is assigned to, guarded by this
+    private DeviceAssignmentTable assignments;
+    private boolean dirty;
+    private boolean fullWarned;
+
+    @PostConstruct
+    public synchronized void init() {
+        assignments = loadSnapshot();
+    }
 
     @Override
-    public int selectReplica(DeviceDataMessage message, int totalReplicas) {
-        Long deviceId = message.getDeviceId();
-        Integer assignedReplica = deviceToReplicaMap.get(deviceId);
+    public synchronized int selectReplica(long deviceId, int totalReplicas) {
+        int minute = currentMinute();
+        int assignedReplica = assignments.get(deviceId, minute);
 
-        if (assignedReplica != null) {
+        // assignments stay sticky when replicas are added, only devices of removed replicas move
+        if (assignedReplica != DeviceAssignmentTable.NO_REPLICA && assignedReplica <= totalReplicas) {
             log.debug("Device {} already assigned to replica {} (batched round-robin)", deviceId, assignedReplica);
             return assignedReplica;
         }
@@ -30,9 +53,73 @@ public class RoundRobinStrategy implements LoadBalancingStrategy {
         // calculate replica based on device ID
         int replica = (int) (((deviceId - 1) / devicesPerReplica) % totalReplicas) + 1;
 
-        deviceToReplicaMap.put(deviceId, replica);
-        log.info("Device {} assigned to replica {} using batched round-robin (batch size: {})", deviceId, replica, devicesPerReplica);
+        dirty = true;
+        if (assignments.put(deviceId, replica, minute)) {
+            log.info("Device {} assigned to replica {} using batched round-robin (batch size: {})", deviceId, replica, devicesPerReplica);
+        } else {
+            if (!fullWarned) {
+                // the formula still applies, the device only loses stickiness across scaling
+                log.warn("Device assignment table is full ({} devices), new devices are not remembered until idle ones are evicted", assignments.maxEntries());
+                fullWarned = true;
+            }
+            // not remembered, so this repeats on every message of the device
+            log.debug("Device {} routed to replica {} using batched round-robin without an assignment", deviceId, replica);
+        }
 
         return replica;
     }
-}
\ No newline at end of file
+
+    @Scheduled(fixedDelayString = "${app.load-balancing.assignments.snapshot-interval-ms:60000}")
+    public synchronized void maintain() {
+        int evicted = assignments.evictIdle(currentMinute() - (int) TimeUnit.HOURS.toMinutes(idleTimeoutHours));
+        if (evicted > 0) {
+            dirty = true;
+            fullWarned = false;
+            log.info("Evicted {} idle device assignments, {} remain", evicted, assignments.size());
+        }
+        saveSnapshot();
+    }
+
+    @PreDestroy
+    public synchronized void saveOnShutdown() {
+        saveSnapshot();
+    }
+
+    private DeviceAssignmentTable loadSnapshot() {
+        if (snapshotFile == null || snapshotFile.isBlank() || !Files.exists(Path.of(snapshotFile))) {
+            return new DeviceAssignmentTable(maxEntries);
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Path.of(snapshotFile))))) {
+            DeviceAssignmentTable loaded = DeviceAssignmentTable.readFrom(in, maxEntries);
+            log.info("Loaded {} device assignments from {}", loaded.size(), snapshotFile);
+            return loaded;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable device assignment snapshot {}: {}", snapshotFile, e.getMessage());
+            return new DeviceAssignmentTable(maxEntries);
+        }
+    }
+
+    private void saveSnapshot() {
+        if (!dirty || snapshotFile == null || snapshotFile.isBlank()) {
+            return;
+        }
+
+        Path target = Path.of(snapshotFile);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                assignments.writeTo(out);
+            }
+            // readers never see a half-written snapshot
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Could not write device assignment snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private static int currentMinute() {
+        return (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,192 @@
+package com.vio.load_balancing.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Open-addressing table of device id to replica number with linear probing, holding primitive keys
+ * and values plus the minute each device was last routed. Holds at most maxEntries devices.
+ * Not thread-safe, callers guard concurrent access.
+ */
+public final class DeviceAssignmentTable {
+    public static final int NO_REPLICA = 0;
+
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int SNAPSHOT_MAGIC = 0x52524131;
+
+    private final int maxEntries;
+
+    private long[] keys;
+    private int[] replicas;
+    // minute of the last lookup, NO_REPLICA in replicas marks a free slot
+    private int[] lastSeen;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public DeviceAssignmentTable(int maxEntries) {
+        this.maxEntries = maxEntries;
+        allocate(16);
+    }
+
+    /**
+     * Returns the replica of the device and marks it as seen, or NO_REPLICA if it has none.
+     */
+    public int get(long deviceId, int minute) {
+        int slot = indexOf(deviceId);
+        if (slot < 0) {
+            return NO_REPLICA;
+        }
+        lastSeen[slot] = minute;
+        return replicas[slot];
+    }
+
+    /**
+     * Stores the replica of the device, returns false if the table is full and the device is new.
+     */
+    public boolean put(long deviceId, int replica, int minute) {
+        int slot = mix(deviceId) & mask;
+        while (replicas[slot] != NO_REPLICA) {
+            if (keys[slot] == deviceId) {
+                replicas[slot] = replica;
+                lastSeen[slot] = minute;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size >= maxEntries) {
+            return false;
+        }
+        keys[slot] = deviceId;
+        replicas[slot] = replica;
+        lastSeen[slot] = minute;
+        if (++size > resizeThreshold) {
+            resize(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes every device not seen since the given minute and returns how many were removed.
+     */
+    public int evictIdle(int seenBefore) {
+        int evicted = 0;
+        int slot = 0;
+        while (slot < keys.length) {
+            if (replicas[slot] != NO_REPLICA && lastSeen[slot] < seenBefore) {
+                // a shifted entry may land on this slot, so look at it again
+                shiftBack(slot);
+                size--;
+                evicted++;
+            } else {
+                slot++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Adds the number of devices of every replica to counts, indexed by replica number.
+     */
+    public void countPerReplica(int[] counts) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (replicas[slot] != NO_REPLICA && replicas[slot] < counts.length) {
+                counts[replicas[slot]]++;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (replicas[slot] != NO_REPLICA) {
+                out.writeLong(keys[slot]);
+                out.writeInt(replicas[slot]);
+                out.writeInt(lastSeen[slot]);
+            }
+        }
+    }
+
+    public static DeviceAssignmentTable readFrom(DataInputStream in, int maxEntries) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a device assignment snapshot");
+        }
+        int count = in.readInt();
+        DeviceAssignmentTable table = new DeviceAssignmentTable(maxEntries);
+        for (int i = 0; i < count; i++) {
+            long deviceId = in.readLong();
+            int replica = in.readInt();
+            int minute = in.readInt();
+            if (replica != NO_REPLICA) {
+                table.put(deviceId, replica, minute);
+            }
+        }
+        return table;
+    }
+
+    private int indexOf(long key) {
+        int slot = mix(key) & mask;
+        while (replicas[slot] != NO_REPLICA) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // backward-shift deletion keeps probe chains intact without tombstones
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (replicas[next] != NO_REPLICA) {
+            int ideal = mix(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                replicas[gap] = replicas[next];
+                lastSeen[gap] = lastSeen[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        replicas[gap] = NO_REPLICA;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldReplicas = replicas;
+        int[] oldLastSeen = lastSeen;
+
+        allocate(capacity);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldReplicas[slot] != NO_REPLICA) {
+                put(oldKeys[slot], oldReplicas[slot], oldLastSeen[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        replicas = new int[capacity];
+        lastSeen = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,162 @@
+package com.vio.load_balancing.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.IOException;
+
+/**
+ * Reads the routing fields of a device reading without binding the payload. Producer headers
+ * {@code device_id} / {@code timestamp} are used when present, otherwise the top level of the JSON
+ * body is token-scanned until both fields were seen. A timestamp may be an ISO local date-time
+ * string, Jackson's array form {@code [year, month, day, hour, minute, second?, nanos?]} or epoch
+ * seconds or milliseconds; any other value only leaves the reading without an event time.
+ */
+public final class DeviceDataScanner {
+    public static final String DEVICE_ID_HEADER = "device_id";
+    public static final String TIMESTAMP_HEADER = "timestamp";
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    // larger epoch numbers are milliseconds, seconds only get there in the year 5138
+    private static final long MAX_EPOCH_SECOND = 100_000_000_000L;
+
+    private static final String DEVICE_ID_FIELD = "device_id";
+    private static final String TIMESTAMP_FIELD = "timestamp";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private DeviceDataScanner() {
+    }
+
+    public static Fields scan(byte[] body, MessageProperties properties) throws IOException {
+        Object deviceHeader = properties.getHeader(DEVICE_ID_HEADER);
+        Object timestampHeader = properties.getHeader(TIMESTAMP_HEADER);
+        if (deviceHeader instanceof Number deviceId && timestampHeader != null) {
+            if (timestampHeader instanceof Number epoch) {
+                return new Fields(deviceId.longValue(), epochSecond(epoch.longValue()));
+            }
+            char[] timestamp = timestampHeader.toString().toCharArray();
+            return new Fields(deviceId.longValue(), parseEpochSecond(timestamp, 0, timestamp.length));
+        }
+        return scan(body);
+    }
+
+    public static Fields scan(byte[] body) throws IOException {
+        Long deviceId = null;
+        long eventSecond = NO_TIMESTAMP;
+        boolean timestampSeen = false;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Device data payload is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME && (deviceId == null || !timestampSeen)) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if (DEVICE_ID_FIELD.equals(field)) {
+                    if (value == JsonToken.VALUE_STRING) {
+                        deviceId = Long.parseLong(parser.getText().trim());
+                    } else if (value.isScalarValue()) {
+                        deviceId = parser.getLongValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else if (TIMESTAMP_FIELD.equals(field)) {
+                    timestampSeen = true;
+                    if (value == JsonToken.VALUE_STRING) {
+                        eventSecond = parseEpochSecond(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else if (value == JsonToken.VALUE_NUMBER_INT) {
+                        eventSecond = epochSecond(parser.getLongValue());
+                    } else if (value == JsonToken.START_ARRAY) {
+                        eventSecond = parseArray(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (deviceId == null) {
+            throw new IOException("Device data payload has no device_id");
+        }
+        return new Fields(deviceId, eventSecond);
+    }
+
+    // ISO local date-time "yyyy-MM-ddTHH:mm:ss...", read as UTC seconds; only used to order readings
+    static long parseEpochSecond(char[] text, int offset, int length) {
+        if (length < 19) {
+            return NO_TIMESTAMP;
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = digits(text, offset + 17, 2);
+        return epochSecond(year, month, day, hour, minute, second);
+    }
+
+    // the array form of a LocalDateTime, positioned on its START_ARRAY; consumes it up to its END_ARRAY
+    private static long parseArray(JsonParser parser) throws IOException {
+        int[] parts = new int[6];
+        int count = 0;
+        boolean valid = true;
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token == null) {
+                throw new IOException("Device data payload ends inside the timestamp");
+            }
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                if (count < parts.length) {
+                    parts[count] = parser.getIntValue();
+                }
+                count++;
+            } else {
+                valid = false;
+                parser.skipChildren();
+            }
+        }
+        // seconds are left out when they are zero, nanoseconds are ignored
+        return valid && count >= 5 ? epochSecond(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5]) : NO_TIMESTAMP;
+    }
+
+    private static long epochSecond(long epoch) {
+        return Math.abs(epoch) >= MAX_EPOCH_SECOND ? Math.floorDiv(epoch, 1000) : epoch;
+    }
+
+    private static long epochSecond(int year, int month, int day, int hour, int minute, int second) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NO_TIMESTAMP;
+        }
+        return daysFromCivil(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second;
+    }
+
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            char c = text[offset + i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // days since 1970-01-01 of a proleptic Gregorian date
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+
+    public record Fields(long deviceId, long eventSecond) {
+    }
+}
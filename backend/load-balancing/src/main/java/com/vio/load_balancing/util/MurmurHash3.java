@@ -0,0 +1,45 @@
+package com.vio.load_balancing.util;
+
+/**
+ * MurmurHash3 (x64, 128-bit variant) specialised for a single long key, returning the
+ * lower 64 bits. Equivalent to hashing the key's 8 little-endian bytes, without allocating.
+ */
+public final class MurmurHash3 {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private MurmurHash3() {
+    }
+
+    public static long hash64(long key) {
+        return hash64(key, 0);
+    }
+
+    public static long hash64(long key, long seed) {
+        long h1 = seed;
+        long h2 = seed;
+
+        long k1 = key * C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+
+        h1 ^= 8;
+        h2 ^= 8;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        return h1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
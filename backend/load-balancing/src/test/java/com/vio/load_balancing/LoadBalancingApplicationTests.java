@@ -3,7 +3,7 @@ package com.vio.load_balancing;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"app.admin.username=admin", "app.admin.password=test"})
 class LoadBalancingApplicationTests {
 
 	@Test
@@ -0,0 +1,75 @@
+package com.vio.load_balancing.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+	private static final int VIRTUAL_NODES = 160;
+	private static final int DEVICES = 30_000;
+
+	@Test
+	void rejectsEmptyRing() {
+		assertThrows(IllegalArgumentException.class, () -> HashRing.build(0, VIRTUAL_NODES));
+		assertThrows(IllegalArgumentException.class, () -> HashRing.build(3, 0));
+	}
+
+	@Test
+	void holdsVirtualNodesOfEveryReplica() {
+		HashRing ring = HashRing.build(3, VIRTUAL_NODES);
+
+		assertEquals(3 * VIRTUAL_NODES, ring.size());
+		assertEquals(3, ring.replicaCount());
+		int[] points = new int[4];
+		for (int index = 0; index < ring.size(); index++) {
+			points[ring.replicaAt(index)]++;
+		}
+		assertEquals(0, points[0]);
+		for (int replica = 1; replica <= 3; replica++) {
+			assertEquals(VIRTUAL_NODES, points[replica]);
+		}
+	}
+
+	@Test
+	void hashPastTheLastPointWrapsToTheFirst() {
+		HashRing ring = HashRing.build(3, VIRTUAL_NODES);
+
+		assertEquals(0, ring.indexFor(Long.MIN_VALUE));
+		int last = ring.indexFor(Long.MAX_VALUE);
+		assertTrue(last == 0 || last == ring.size() - 1);
+	}
+
+	@Test
+	void spreadsDevicesEvenly() {
+		HashRing ring = HashRing.build(3, VIRTUAL_NODES);
+
+		int[] devices = new int[4];
+		for (long deviceId = 1; deviceId <= DEVICES; deviceId++) {
+			devices[ring.replicaFor(deviceId)]++;
+		}
+		for (int replica = 1; replica <= 3; replica++) {
+			assertTrue(Math.abs(devices[replica] - DEVICES / 3) < DEVICES / 3 * 0.2,
+					"replica " + replica + " got " + devices[replica] + " devices");
+		}
+	}
+
+	@Test
+	void addingAReplicaOnlyMovesDevicesToIt() {
+		HashRing three = HashRing.build(3, VIRTUAL_NODES);
+		HashRing four = HashRing.build(4, VIRTUAL_NODES);
+
+		int moved = 0;
+		for (long deviceId = 1; deviceId <= DEVICES; deviceId++) {
+			int before = three.replicaFor(deviceId);
+			int after = four.replicaFor(deviceId);
+			if (before != after) {
+				assertEquals(4, after, "device " + deviceId + " moved between existing replicas");
+				moved++;
+			}
+		}
+		assertTrue(Math.abs(moved - DEVICES / 4) < DEVICES / 4 * 0.2, moved + " devices moved");
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.vio.load_balancing.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceAssignmentTableTest {
+
+	@Test
+	void unknownDeviceHasNoReplica() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(100);
+
+		assertEquals(DeviceAssignmentTable.NO_REPLICA, table.get(42, 0));
+		assertEquals(0, table.size());
+	}
+
+	@Test
+	void putStoresAndReplacesTheReplica() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(100);
+
+		assertTrue(table.put(42, 2, 0));
+		assertEquals(2, table.get(42, 0));
+		assertTrue(table.put(42, 3, 0));
+		assertEquals(3, table.get(42, 0));
+		assertEquals(1, table.size());
+	}
+
+	@Test
+	void keepsEveryDeviceAcrossResizes() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(100_000);
+
+		// far past the 16 initial slots, so the table resizes several times and probes collide
+		for (long deviceId = 1; deviceId <= 10_000; deviceId++) {
+			assertTrue(table.put(deviceId * 16, replicaOf(deviceId), 0));
+		}
+		assertEquals(10_000, table.size());
+		for (long deviceId = 1; deviceId <= 10_000; deviceId++) {
+			assertEquals(replicaOf(deviceId), table.get(deviceId * 16, 0));
+		}
+		assertEquals(DeviceAssignmentTable.NO_REPLICA, table.get(10_001 * 16, 0));
+	}
+
+	@Test
+	void refusesNewDevicesWhenFull() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(3);
+		table.put(1, 1, 0);
+		table.put(2, 2, 0);
+		table.put(3, 3, 0);
+
+		assertFalse(table.put(4, 1, 0));
+		assertEquals(DeviceAssignmentTable.NO_REPLICA, table.get(4, 0));
+		assertTrue(table.put(3, 1, 0));
+		assertEquals(3, table.size());
+	}
+
+	@Test
+	void evictionKeepsProbeChainsOfRemainingDevices() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(100_000);
+		for (long deviceId = 1; deviceId <= 5_000; deviceId++) {
+			// every other device was last seen at minute 10, the rest at minute 20
+			table.put(deviceId, replicaOf(deviceId), deviceId % 2 == 0 ? 10 : 20);
+		}
+
+		assertEquals(2_500, table.evictIdle(15));
+		assertEquals(2_500, table.size());
+		for (long deviceId = 1; deviceId <= 5_000; deviceId++) {
+			int expected = deviceId % 2 == 0 ? DeviceAssignmentTable.NO_REPLICA : replicaOf(deviceId);
+			assertEquals(expected, table.get(deviceId, 20), "device " + deviceId);
+		}
+	}
+
+	@Test
+	void lookupKeepsADeviceFromBeingEvicted() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(100);
+		table.put(1, 1, 0);
+		table.put(2, 2, 0);
+
+		table.get(1, 30);
+
+		assertEquals(1, table.evictIdle(15));
+		assertEquals(1, table.get(1, 30));
+		assertEquals(DeviceAssignmentTable.NO_REPLICA, table.get(2, 30));
+	}
+
+	@Test
+	void evictionFreesRoomInAFullTable() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(2);
+		table.put(1, 1, 0);
+		table.put(2, 2, 20);
+
+		table.evictIdle(15);
+
+		assertTrue(table.put(3, 3, 20));
+		assertEquals(3, table.get(3, 20));
+	}
+
+	@Test
+	void countsDevicesPerReplica() {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(100);
+		for (long deviceId = 1; deviceId <= 30; deviceId++) {
+			table.put(deviceId, replicaOf(deviceId), 0);
+		}
+
+		int[] counts = new int[4];
+		table.countPerReplica(counts);
+
+		assertEquals(0, counts[0]);
+		assertEquals(10, counts[1]);
+		assertEquals(10, counts[2]);
+		assertEquals(10, counts[3]);
+	}
+
+	@Test
+	void snapshotRoundTrip() throws IOException {
+		DeviceAssignmentTable table = new DeviceAssignmentTable(100);
+		for (long deviceId = 1; deviceId <= 50; deviceId++) {
+			table.put(deviceId, replicaOf(deviceId), (int) deviceId);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		table.writeTo(new DataOutputStream(bytes));
+		DeviceAssignmentTable restored = DeviceAssignmentTable.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 100);
+
+		assertEquals(50, restored.size());
+		// last seen minutes survive too: only devices seen before minute 26 are idle
+		assertEquals(25, restored.evictIdle(26));
+		for (long deviceId = 26; deviceId <= 50; deviceId++) {
+			assertEquals(replicaOf(deviceId), restored.get(deviceId, 50));
+		}
+	}
+
+	@Test
+	void rejectsForeignSnapshot() {
+		byte[] garbage = {1, 2, 3, 4, 0, 0, 0, 0};
+
+		assertThrows(IOException.class, () -> DeviceAssignmentTable.readFrom(new DataInputStream(new ByteArrayInputStream(garbage)), 100));
+	}
+
+	private static int replicaOf(long deviceId) {
+		return (int) (deviceId % 3) + 1;
+	}
+
+}
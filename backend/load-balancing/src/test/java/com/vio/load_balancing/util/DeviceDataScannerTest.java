@@ -0,0 +1,122 @@
+package com.vio.load_balancing.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeviceDataScannerTest {
+	private static final long TEN_O_CLOCK = LocalDateTime.of(2025, 1, 1, 10, 0).toEpochSecond(ZoneOffset.UTC);
+
+	@Test
+	void readsDeviceIdAndStringTimestamp() throws IOException {
+		DeviceDataScanner.Fields fields = scan("{\"device_id\":7,\"timestamp\":\"2025-01-01T10:00:00\",\"measurement_value\":0.4}");
+
+		assertEquals(7, fields.deviceId());
+		assertEquals(TEN_O_CLOCK, fields.eventSecond());
+	}
+
+	@Test
+	void fieldOrderDoesNotMatter() throws IOException {
+		DeviceDataScanner.Fields fields = scan("{\"measurement_value\":0.4,\"timestamp\":\"2025-01-01T10:00:00.250\",\"device_id\":\"7\"}");
+
+		assertEquals(7, fields.deviceId());
+		assertEquals(TEN_O_CLOCK, fields.eventSecond());
+	}
+
+	@Test
+	void readsJacksonArrayTimestampBeforeTheDeviceId() throws IOException {
+		assertEquals(new DeviceDataScanner.Fields(7, TEN_O_CLOCK), scan("{\"timestamp\":[2025,1,1,10,0],\"device_id\":7}"));
+		assertEquals(new DeviceDataScanner.Fields(7, TEN_O_CLOCK + 5), scan("{\"timestamp\":[2025,1,1,10,0,5,123000000],\"device_id\":7}"));
+	}
+
+	@Test
+	void readsEpochSecondsAndMillis() throws IOException {
+		assertEquals(TEN_O_CLOCK, scan("{\"timestamp\":" + TEN_O_CLOCK + ",\"device_id\":7}").eventSecond());
+		assertEquals(TEN_O_CLOCK, scan("{\"timestamp\":" + (TEN_O_CLOCK * 1000 + 999) + ",\"device_id\":7}").eventSecond());
+	}
+
+	@Test
+	void unreadableTimestampStillRoutesTheReading() throws IOException {
+		assertEquals(new DeviceDataScanner.Fields(7, DeviceDataScanner.NO_TIMESTAMP), scan("{\"timestamp\":{\"at\":[1,2]},\"device_id\":7}"));
+		assertEquals(new DeviceDataScanner.Fields(7, DeviceDataScanner.NO_TIMESTAMP), scan("{\"timestamp\":[2025,[1],1,10,0],\"device_id\":7}"));
+		assertEquals(new DeviceDataScanner.Fields(7, DeviceDataScanner.NO_TIMESTAMP), scan("{\"timestamp\":\"yesterday\",\"device_id\":7}"));
+		assertEquals(new DeviceDataScanner.Fields(7, DeviceDataScanner.NO_TIMESTAMP), scan("{\"device_id\":7}"));
+	}
+
+	@Test
+	void nestedValuesAreSkipped() throws IOException {
+		DeviceDataScanner.Fields fields = scan("{\"meta\":{\"device_id\":1,\"timestamp\":\"1999-01-01T00:00:00\"},\"device_id\":7,\"timestamp\":\"2025-01-01T10:00:00\"}");
+
+		assertEquals(new DeviceDataScanner.Fields(7, TEN_O_CLOCK), fields);
+	}
+
+	@Test
+	void rejectsPayloadsWithoutUsableDeviceId() {
+		assertThrows(IOException.class, () -> scan("{\"device_id\":[7],\"timestamp\":\"2025-01-01T10:00:00\"}"));
+		assertThrows(IOException.class, () -> scan("{\"timestamp\":\"2025-01-01T10:00:00\"}"));
+		assertThrows(IOException.class, () -> scan("[7]"));
+		assertThrows(IOException.class, () -> scan("not json"));
+		assertThrows(IOException.class, () -> scan("{\"device_id\":"));
+		assertThrows(NumberFormatException.class, () -> scan("{\"device_id\":\"seven\"}"));
+	}
+
+	@Test
+	void headersTakePrecedenceOverTheBody() throws IOException {
+		MessageProperties properties = new MessageProperties();
+		properties.setHeader(DeviceDataScanner.DEVICE_ID_HEADER, 9L);
+		properties.setHeader(DeviceDataScanner.TIMESTAMP_HEADER, "2025-01-01T10:00:00");
+
+		DeviceDataScanner.Fields fields = DeviceDataScanner.scan("not json".getBytes(StandardCharsets.UTF_8), properties);
+
+		assertEquals(new DeviceDataScanner.Fields(9, TEN_O_CLOCK), fields);
+	}
+
+	@Test
+	void bodyIsScannedWhenHeadersAreIncomplete() throws IOException {
+		MessageProperties properties = new MessageProperties();
+		properties.setHeader(DeviceDataScanner.DEVICE_ID_HEADER, 9L);
+		byte[] body = "{\"device_id\":7,\"timestamp\":\"2025-01-01T10:00:00\"}".getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(new DeviceDataScanner.Fields(7, TEN_O_CLOCK), DeviceDataScanner.scan(body, properties));
+	}
+
+	@Test
+	void parsesIsoLocalDateTimeAsUtcSeconds() {
+		assertEquals(0, parse("1970-01-01T00:00:00"));
+		assertEquals(TEN_O_CLOCK, parse("2025-01-01T10:00:00"));
+		assertEquals(LocalDateTime.of(2024, 2, 29, 23, 59, 59).toEpochSecond(ZoneOffset.UTC), parse("2024-02-29T23:59:59.999999"));
+		assertEquals(LocalDateTime.of(1969, 12, 31, 23, 0).toEpochSecond(ZoneOffset.UTC), parse("1969-12-31T23:00:00"));
+	}
+
+	@Test
+	void parseRejectsMalformedDateTimes() {
+		assertEquals(DeviceDataScanner.NO_TIMESTAMP, parse("2025-01-01T10:00"));
+		assertEquals(DeviceDataScanner.NO_TIMESTAMP, parse("2025-13-01T10:00:00"));
+		assertEquals(DeviceDataScanner.NO_TIMESTAMP, parse("2025-01-01T24:00:00"));
+		assertEquals(DeviceDataScanner.NO_TIMESTAMP, parse("2025-0a-01T10:00:00"));
+		assertEquals(DeviceDataScanner.NO_TIMESTAMP, parse(""));
+	}
+
+	@Test
+	void parseHonoursOffsetAndLength() {
+		char[] text = "xx2025-01-01T10:00:00yy".toCharArray();
+
+		assertEquals(TEN_O_CLOCK, DeviceDataScanner.parseEpochSecond(text, 2, 19));
+	}
+
+	private static DeviceDataScanner.Fields scan(String json) throws IOException {
+		return DeviceDataScanner.scan(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static long parse(String text) {
+		return DeviceDataScanner.parseEpochSecond(text.toCharArray(), 0, text.length());
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.vio.load_balancing.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class MurmurHash3Test {
+
+	// lower 64 bits of the reference MurmurHash3 x64 128 of the key's little-endian bytes, seed 0
+	@Test
+	void matchesReferenceHashOfLittleEndianBytes() {
+		assertEquals(0x28df63b7cc57c3cbL, MurmurHash3.hash64(0L));
+		assertEquals(0x4403b7fb05c44aL, MurmurHash3.hash64(1L));
+		assertEquals(0xb6acc39989d27df8L, MurmurHash3.hash64(42L));
+		assertEquals(0xa0e4b27a1abaed73L, MurmurHash3.hash64(-1L));
+		assertEquals(0x6c76ebcbdad669d4L, MurmurHash3.hash64(Long.MAX_VALUE));
+		assertEquals(0x25efb65a9b522ad1L, MurmurHash3.hash64(123456789L));
+	}
+
+	@Test
+	void seedChangesTheHash() {
+		assertEquals(MurmurHash3.hash64(42L), MurmurHash3.hash64(42L, 0));
+		assertNotEquals(MurmurHash3.hash64(42L), MurmurHash3.hash64(42L, 1));
+	}
+
+}
@@ -0,0 +1,242 @@
+package com.vio.monitoring_service.archive;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Column encodings of one device block in a month archive. Hours are stored as the hour of the
+ * month (0..743), delta-encoded as unsigned varints, measurement counts as unsigned varints, and
+ * hourly consumption as a Gorilla XOR bit stream: a value equal to the previous one costs one bit,
+ * otherwise only the meaningful bits of the XOR with the previous value are written.
+ */
+final class ArchiveCodec {
+    private ArchiveCodec() {
+    }
+
+    static byte[] encode(DeviceSeries series) {
+        int n = series.size();
+        Output out = new Output(16 + n * 4);
+        out.writeVarint(n);
+
+        int previousHour = 0;
+        for (int i = 0; i < n; i++) {
+            out.writeVarint(series.hours[i] - previousHour);
+            previousHour = series.hours[i];
+        }
+        for (int i = 0; i < n; i++) {
+            out.writeVarint(series.counts[i]);
+        }
+
+        long previous = 0;
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 0; i < n; i++) {
+            long bits = Double.doubleToRawLongBits(series.consumption[i]);
+            if (i == 0) {
+                out.writeBits(bits, 64);
+                previous = bits;
+                continue;
+            }
+
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.writeBits(0, 1);
+                continue;
+            }
+
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // meaningful bits fit into the previous window
+                out.writeBits(0b10, 2);
+                out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                out.writeBits(0b11, 2);
+                out.writeBits(leading, 5);
+                out.writeBits(significant - 1, 6);
+                out.writeBits(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static DeviceSeries decode(ByteBuffer block) {
+        Input in = new Input(block);
+        int n = in.readVarint();
+        DeviceSeries series = new DeviceSeries(n);
+
+        int hour = 0;
+        for (int i = 0; i < n; i++) {
+            hour += in.readVarint();
+            series.hours[i] = hour;
+        }
+        for (int i = 0; i < n; i++) {
+            series.counts[i] = in.readVarint();
+        }
+
+        long previous = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0) {
+                previous = in.readBits(64);
+            } else if (in.readBits(1) == 1) {
+                if (in.readBits(1) == 1) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            series.consumption[i] = Double.longBitsToDouble(previous);
+        }
+        series.size = n;
+        return series;
+    }
+
+    /**
+     * Hourly rows of one device in one month, ordered by hour of the month.
+     */
+    static final class DeviceSeries {
+        int[] hours;
+        double[] consumption;
+        int[] counts;
+        int size;
+
+        DeviceSeries(int capacity) {
+            hours = new int[capacity];
+            consumption = new double[capacity];
+            counts = new int[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int hour, double value, int count) {
+            if (size == hours.length) {
+                int capacity = Math.max(8, size << 1);
+                hours = Arrays.copyOf(hours, capacity);
+                consumption = Arrays.copyOf(consumption, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            hours[size] = hour;
+            consumption[size] = value;
+            counts[size] = count;
+            size++;
+        }
+
+        // sums two series of the same device, used when late rows are added to an archived month
+        static DeviceSeries merge(DeviceSeries a, DeviceSeries b) {
+            DeviceSeries merged = new DeviceSeries(a.size + b.size);
+            int i = 0;
+            int j = 0;
+            while (i < a.size || j < b.size) {
+                if (j == b.size || (i < a.size && a.hours[i] < b.hours[j])) {
+                    merged.add(a.hours[i], a.consumption[i], a.counts[i]);
+                    i++;
+                } else if (i == a.size || b.hours[j] < a.hours[i]) {
+                    merged.add(b.hours[j], b.consumption[j], b.counts[j]);
+                    j++;
+                } else {
+                    merged.add(a.hours[i], a.consumption[i] + b.consumption[j], a.counts[i] + b.counts[j]);
+                    i++;
+                    j++;
+                }
+            }
+            return merged;
+        }
+    }
+
+    private static final class Output {
+        private byte[] bytes;
+        private int length;
+        private long bitBuffer;
+        private int bitCount;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        // most significant bit first, count between 1 and 64
+        void writeBits(long value, int count) {
+            for (int remaining = count; remaining > 0; ) {
+                int take = Math.min(remaining, 8 - bitCount);
+                int chunk = (int) (value >>> (remaining - take)) & ((1 << take) - 1);
+                bitBuffer = (bitBuffer << take) | chunk;
+                bitCount += take;
+                remaining -= take;
+                if (bitCount == 8) {
+                    writeByte((int) bitBuffer);
+                    bitBuffer = 0;
+                    bitCount = 0;
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            if (bitCount > 0) {
+                writeByte((int) (bitBuffer << (8 - bitCount)));
+                bitBuffer = 0;
+                bitCount = 0;
+            }
+            return Arrays.copyOf(bytes, length);
+        }
+
+        private void writeByte(int value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length << 1);
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+
+    private static final class Input {
+        private final ByteBuffer buffer;
+        private int current;
+        private int bitsLeft;
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = buffer.get() & 0xFF;
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        long readBits(int count) {
+            long value = 0;
+            for (int remaining = count; remaining > 0; ) {
+                if (bitsLeft == 0) {
+                    current = buffer.get() & 0xFF;
+                    bitsLeft = 8;
+                }
+                int take = Math.min(remaining, bitsLeft);
+                int chunk = (current >>> (bitsLeft - take)) & ((1 << take) - 1);
+                value = (value << take) | chunk;
+                bitsLeft -= take;
+                remaining -= take;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.vio.monitoring_service.archive;
+
+import com.vio.monitoring_service.archive.ArchiveCodec.DeviceSeries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Read-only, memory-mapped view of one month archive. Layout: a 16 byte header (magic, version,
+ * year, month), the encoded device blocks, an index of (deviceId, offset, length) entries sorted
+ * by device id, and a 16 byte footer (index offset, device count, magic). Lookups binary search
+ * the index and decode only the block of the requested device. Safe for concurrent readers.
+ */
+public class MonthArchive {
+    static final int MAGIC = 0x454D4131;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 20;
+    private static final int FOOTER_BYTES = 16;
+
+    private final YearMonth month;
+    private final MappedByteBuffer buffer;
+    private final long indexOffset;
+    private final int deviceCount;
+
+    private MonthArchive(YearMonth month, MappedByteBuffer buffer, long indexOffset, int deviceCount) {
+        this.month = month;
+        this.buffer = buffer;
+        this.indexOffset = indexOffset;
+        this.deviceCount = deviceCount;
+    }
+
+    public static MonthArchive open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int size = buffer.capacity();
+        if (size < HEADER_BYTES + FOOTER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a measurement archive: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported measurement archive version " + buffer.getInt(4) + ": " + file);
+        }
+
+        YearMonth month = YearMonth.of(buffer.getInt(8), buffer.getInt(12));
+        long indexOffset = buffer.getLong(size - FOOTER_BYTES);
+        int deviceCount = buffer.getInt(size - 8);
+        return new MonthArchive(month, buffer, indexOffset, deviceCount);
+    }
+
+    public YearMonth month() {
+        return month;
+    }
+
+    public int deviceCount() {
+        return deviceCount;
+    }
+
+    long deviceIdAt(int index) {
+        return buffer.getLong((int) (indexOffset + (long) index * INDEX_ENTRY_BYTES));
+    }
+
+    // calls the consumer for every archived hour of the device between the two dates, in order
+    public void forEachHour(long deviceId, LocalDate startDate, LocalDate endDate, HourConsumer consumer) {
+        int index = indexOf(deviceId);
+        if (index < 0) {
+            return;
+        }
+
+        DeviceSeries series = seriesAt(index);
+        int first = startDate.isAfter(month.atDay(1)) ? (startDate.getDayOfMonth() - 1) * 24 : 0;
+        int last = endDate.isBefore(month.atEndOfMonth()) ? endDate.getDayOfMonth() * 24 - 1 : Integer.MAX_VALUE;
+        for (int i = 0; i < series.size(); i++) {
+            int hourOfMonth = series.hours[i];
+            if (hourOfMonth < first) {
+                continue;
+            }
+            if (hourOfMonth > last) {
+                break;
+            }
+            consumer.accept(month.atDay(hourOfMonth / 24 + 1), hourOfMonth % 24, series.consumption[i], series.counts[i]);
+        }
+    }
+
+    DeviceSeries seriesAt(int index) {
+        int entry = (int) (indexOffset + (long) index * INDEX_ENTRY_BYTES);
+        int offset = (int) buffer.getLong(entry + 8);
+        int length = buffer.getInt(entry + 16);
+        // a private slice keeps concurrent readers from sharing a position
+        ByteBuffer block = buffer.slice(offset, length);
+        return ArchiveCodec.decode(block);
+    }
+
+    private int indexOf(long deviceId) {
+        int low = 0;
+        int high = deviceCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long id = deviceIdAt(mid);
+            if (id < deviceId) {
+                low = mid + 1;
+            } else if (id > deviceId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    public interface HourConsumer {
+        void accept(LocalDate date, int hour, double consumption, int measurementCount);
+    }
+}
@@ -0,0 +1,121 @@
+package com.vio.monitoring_service.archive;
+
+import com.vio.monitoring_service.archive.ArchiveCodec.DeviceSeries;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * Streams the hourly rows of one month into an archive file. Rows must arrive ordered by
+ * (deviceId, date, hour). When a previous archive of the month is given, its devices are carried
+ * over and rows of the same hour are summed. The device index and the footer are appended on
+ * {@link #close()}.
+ */
+public class MonthArchiveWriter implements Closeable {
+    private static final long NO_DEVICE = Long.MIN_VALUE;
+
+    private final YearMonth month;
+    private final MonthArchive previous;
+    private final DataOutputStream out;
+    private long position;
+    private int nextPrevious;
+
+    private long currentDevice = NO_DEVICE;
+    private DeviceSeries current;
+
+    private long[] deviceIds = new long[64];
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+    private int deviceCount;
+
+    public MonthArchiveWriter(Path file, YearMonth month, MonthArchive previous) throws IOException {
+        this.month = month;
+        this.previous = previous;
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MonthArchive.MAGIC);
+        out.writeInt(MonthArchive.VERSION);
+        out.writeInt(month.getYear());
+        out.writeInt(month.getMonthValue());
+        position = MonthArchive.HEADER_BYTES;
+    }
+
+    public void add(long deviceId, LocalDate date, int hour, double consumption, int measurementCount) throws IOException {
+        if (!YearMonth.from(date).equals(month)) {
+            throw new IllegalArgumentException("Row of " + date + " does not belong to the archive of " + month);
+        }
+        if (deviceId != currentDevice) {
+            if (currentDevice != NO_DEVICE && deviceId < currentDevice) {
+                throw new IllegalArgumentException("Rows must be ordered by device, got " + deviceId + " after " + currentDevice);
+            }
+            finishDevice();
+            currentDevice = deviceId;
+            current = new DeviceSeries(32);
+        }
+        current.add((date.getDayOfMonth() - 1) * 24 + hour, consumption, measurementCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            finishDevice();
+            copyPreviousBefore(Long.MAX_VALUE, true);
+
+            long indexOffset = position;
+            for (int i = 0; i < deviceCount; i++) {
+                out.writeLong(deviceIds[i]);
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(deviceCount);
+            out.writeInt(MonthArchive.MAGIC);
+        }
+    }
+
+    private void finishDevice() throws IOException {
+        if (current == null) {
+            return;
+        }
+
+        copyPreviousBefore(currentDevice, false);
+        DeviceSeries series = current;
+        if (previous != null && nextPrevious < previous.deviceCount() && previous.deviceIdAt(nextPrevious) == currentDevice) {
+            series = DeviceSeries.merge(previous.seriesAt(nextPrevious++), current);
+        }
+        writeDevice(currentDevice, series);
+        current = null;
+    }
+
+    private void copyPreviousBefore(long deviceId, boolean inclusive) throws IOException {
+        while (previous != null && nextPrevious < previous.deviceCount()) {
+            long id = previous.deviceIdAt(nextPrevious);
+            if (id > deviceId || (id == deviceId && !inclusive)) {
+                return;
+            }
+            writeDevice(id, previous.seriesAt(nextPrevious++));
+        }
+    }
+
+    private void writeDevice(long deviceId, DeviceSeries series) throws IOException {
+        byte[] block = ArchiveCodec.encode(series);
+        if (deviceCount == deviceIds.length) {
+            deviceIds = Arrays.copyOf(deviceIds, deviceCount << 1);
+            offsets = Arrays.copyOf(offsets, deviceCount << 1);
+            lengths = Arrays.copyOf(lengths, deviceCount << 1);
+        }
+        deviceIds[deviceCount] = deviceId;
+        offsets[deviceCount] = position;
+        lengths[deviceCount] = block.length;
+        deviceCount++;
+
+        out.write(block);
+        position += block.length;
+    }
+}
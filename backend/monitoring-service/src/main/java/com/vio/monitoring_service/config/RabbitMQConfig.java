@@ -18,13 +18,21 @@ public class RabbitMQConfig {
     public static final String DEVICE_SYNC_EXCHANGE = "device.sync.exchange";
     public static final String DEVICE_SYNC_QUEUE_MONITORING = "device.sync.queue.monitoring";
     public static final String DEVICE_SYNC_ROUTING_KEY = "device.sync";
+    public static final String DEVICE_REGISTRY_QUEUE_PREFIX = "device.sync.queue.monitoring.registry.";
 
     public static final String OVERCONSUMPTION_EXCHANGE = "overconsumption.exchange";
     public static final String OVERCONSUMPTION_QUEUE = "overconsumption.alert.queue";
     public static final String OVERCONSUMPTION_ROUTING_KEY = "overconsumption.alert";
 
+    public static final String ANOMALY_EXCHANGE = "anomaly.exchange";
+    public static final String ANOMALY_QUEUE = "anomaly.alert.queue";
+    public static final String ANOMALY_ROUTING_KEY = "anomaly.detected";
+
     public static final String INGEST_EXCHANGE = "ingest.exchange";
 
+    public static final String LIVE_CONSUMPTION_EXCHANGE = "consumption.live.exchange";
+    public static final String LIVE_CONSUMPTION_QUEUE_PREFIX = "consumption.live.queue.";
+
     @Value("${spring.rabbitmq.sync.host}")
     private String syncHost;
 
@@ -52,6 +60,15 @@ public class RabbitMQConfig {
     @Value("${app.replica.id:1}")
     private int replicaId;
 
+    @Value("${app.ingest.batch-size:200}")
+    private int ingestBatchSize;
+
+    @Value("${app.ingest.receive-timeout-ms:1000}")
+    private long ingestReceiveTimeout;
+
+    @Value("${app.ingest.prefetch:2000}")
+    private int ingestPrefetch;
+
     @Bean
     public TopicExchange overconsumptionExchange() {
         return new TopicExchange(OVERCONSUMPTION_EXCHANGE, true, false);
@@ -70,8 +87,38 @@ public class RabbitMQConfig {
                 .with(OVERCONSUMPTION_ROUTING_KEY);
     }
 
+    @Bean
+    public TopicExchange anomalyExchange() {
+        return new TopicExchange(ANOMALY_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue anomalyQueue() {
+        return new Queue(ANOMALY_QUEUE, true);
+    }
+
+    @Bean
+    public Binding anomalyBinding() {
+        return BindingBuilder
+                .bind(anomalyQueue())
+                .to(anomalyExchange())
+                .with(ANOMALY_ROUTING_KEY);
+    }
+
+    // separate connection with simple publisher confirms, so waiting for confirms never blocks other sync traffic
+    @Bean(name = "alertConnectionFactory")
+    public ConnectionFactory alertConnectionFactory() {
+        CachingConnectionFactory factory = new CachingConnectionFactory();
+        factory.setHost(syncHost);
+        factory.setPort(syncPort);
+        factory.setUsername(syncUsername);
+        factory.setPassword(syncPassword);
+        factory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.SIMPLE);
+        return factory;
+    }
+
     @Bean(name = "alertRabbitTemplate")
-    public RabbitTemplate alertRabbitTemplate(@Qualifier("syncConnectionFactory") ConnectionFactory connectionFactory) {
+    public RabbitTemplate alertRabbitTemplate(@Qualifier("alertConnectionFactory") ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(jsonMessageConverter());
         return template;
@@ -124,6 +171,38 @@ public class RabbitMQConfig {
                 .with(DEVICE_SYNC_ROUTING_KEY);
     }
 
+    // every replica needs every sync event for its device registry, the shared queue above is competing
+    @Bean
+    public Queue deviceRegistryQueue() {
+        return new Queue(DEVICE_REGISTRY_QUEUE_PREFIX + replicaId, false, false, true);
+    }
+
+    @Bean
+    public Binding deviceRegistryBinding() {
+        return BindingBuilder
+                .bind(deviceRegistryQueue())
+                .to(deviceSyncExchange())
+                .with(DEVICE_SYNC_ROUTING_KEY);
+    }
+
+    // live hourly totals go to every replica, whichever one holds the SSE subscribers of a device
+    @Bean
+    public FanoutExchange liveConsumptionExchange() {
+        return new FanoutExchange(LIVE_CONSUMPTION_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue liveConsumptionQueue() {
+        return new Queue(LIVE_CONSUMPTION_QUEUE_PREFIX + replicaId, false, false, true);
+    }
+
+    @Bean
+    public Binding liveConsumptionBinding() {
+        return BindingBuilder
+                .bind(liveConsumptionQueue())
+                .to(liveConsumptionExchange());
+    }
+
     @Bean(name = "dataConnectionFactory")
     public ConnectionFactory dataConnectionFactory() {
         CachingConnectionFactory factory = new CachingConnectionFactory();
@@ -146,6 +225,13 @@ public class RabbitMQConfig {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(jsonMessageConverter());
+        // deliver up to batchSize messages per call; acks are sent after the aggregation flush commits
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(ingestBatchSize);
+        factory.setReceiveTimeout(ingestReceiveTimeout);
+        factory.setPrefetchCount(ingestPrefetch);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
         return factory;
     }
 
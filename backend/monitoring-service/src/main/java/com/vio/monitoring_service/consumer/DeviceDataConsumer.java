@@ -1,88 +1,119 @@
 package com.vio.monitoring_service.consumer;
 
+import com.rabbitmq.client.Channel;
 import com.vio.monitoring_service.event.DeviceDataMessage;
-import com.vio.monitoring_service.model.Measurement;
-import com.vio.monitoring_service.model.MonitoredDevice;
-import com.vio.monitoring_service.producer.AlertPublisher;
-import com.vio.monitoring_service.repository.MeasurementRepository;
-import com.vio.monitoring_service.repository.MonitoredDeviceRepository;
+import com.vio.monitoring_service.rules.RuleEngine;
+import com.vio.monitoring_service.rules.RuleEvaluation;
+import com.vio.monitoring_service.service.AnomalyDetector;
+import com.vio.monitoring_service.service.DeviceRegistry;
+import com.vio.monitoring_service.service.MeasurementAggregator;
+import com.vio.monitoring_service.service.OverconsumptionDetector;
+import com.vio.monitoring_service.service.ReadingDeduplicator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DeviceDataConsumer {
-    private final MeasurementRepository measurementRepository;
-    private final MonitoredDeviceRepository monitoredDeviceRepository;
-    private final AlertPublisher alertPublisher;
+    private final DeviceRegistry deviceRegistry;
+    private final MeasurementAggregator measurementAggregator;
+    private final ReadingDeduplicator readingDeduplicator;
+    private final RuleEngine ruleEngine;
+    private final OverconsumptionDetector overconsumptionDetector;
+    private final AnomalyDetector anomalyDetector;
+    private final MessageConverter jsonMessageConverter;
 
     @Value("${app.replica.id:1}")
     private int replicaId;
 
-    @RabbitListener(queues = "#{ingestQueue.name}", containerFactory = "dataListenerContainerFactory")    @Transactional
-    public void handleDeviceData(DeviceDataMessage event) {
-        log.info("[Replica {}] Received device data: deviceId={}, timestamp={}, value={}", replicaId, event.getDeviceId(), event.getTimestamp(), event.getMeasurementValue());
+    @RabbitListener(queues = "#{ingestQueue.name}", containerFactory = "dataListenerContainerFactory")
+    public void handleDeviceData(List<Message> messages, Channel channel) {
+        log.debug("[Replica {}] Received batch of {} device data messages", replicaId, messages.size());
 
+        List<Reading> readings = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                message.getMessageProperties().setInferredArgumentType(DeviceDataMessage.class);
+                DeviceDataMessage event = (DeviceDataMessage) jsonMessageConverter.fromMessage(message);
+                readings.add(new Reading(event, message.getMessageProperties().getDeliveryTag(), Boolean.TRUE.equals(message.getMessageProperties().isRedelivered())));
+            } catch (Exception e) {
+                // a message that cannot be parsed never will be, it is acked with the rest of the batch
+                log.error("❌ [Replica {}] Dropping unreadable device data message: {}", replicaId, e.getMessage());
+            }
+        }
+
+        // high-water marks of devices new to this replica are loaded once per batch, not per reading
         try {
-            if (!monitoredDeviceRepository.existsById(event.getDeviceId())) {
+            readingDeduplicator.prepare(readings.stream().map(reading -> reading.event().getDeviceId()).toList());
+        } catch (Exception e) {
+            log.error("❌ [Replica {}] Failed to load ingest high-water marks, requeueing {} readings: {}", replicaId, readings.size(), e.getMessage());
+            readings.forEach(reading -> measurementAggregator.reject(channel, reading.deliveryTag(), true));
+            return;
+        }
+
+        for (Reading reading : readings) {
+            try {
+                handleDeviceData(reading.event(), channel, reading.deliveryTag());
+            } catch (Exception e) {
+                // requeued once, a reading failing again is rejected and dead-lettered when the queue has a policy for it
+                boolean requeue = !reading.redelivered();
+                log.error("❌ [Replica {}] {} device data for deviceId {} after processing failure", replicaId, requeue ? "Requeueing" : "Rejecting", reading.event().getDeviceId());
+                measurementAggregator.reject(channel, reading.deliveryTag(), requeue);
+            }
+        }
+
+        // acked once every reading of the batch was written, readings held in open hour windows delay the ack
+        long lastDeliveryTag = messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag();
+        measurementAggregator.deferAck(channel, lastDeliveryTag);
+    }
+
+    private void handleDeviceData(DeviceDataMessage event, Channel channel, long deliveryTag) {
+        log.debug("[Replica {}] Received device data: deviceId={}, timestamp={}, value={}", replicaId, event.getDeviceId(), event.getTimestamp(), event.getMeasurementValue());
+
+        try {
+            DeviceRegistry.DeviceInfo device = deviceRegistry.find(event.getDeviceId());
+            if (device == null) {
                 log.warn("❌ [Replica {}] Device {} is not in monitored devices list. Synchronization may be pending.", replicaId, event.getDeviceId());
                 return;
             }
 
-            // check overconsumption and send alert if necessary
-            MonitoredDevice device = monitoredDeviceRepository.findById(event.getDeviceId()).orElse(null);
-            if (device != null && device.getMaxConsumption() != null) {
-                Double currentValue = event.getMeasurementValue();
-                Double maxConsumption = device.getMaxConsumption();
-
-                if (currentValue > maxConsumption) {
-                    log.warn("[Replica {}] Overconsumption detected for device {}: current reading {} > max {}", replicaId, event.getDeviceId(), currentValue, maxConsumption);
-                    alertPublisher.publishOverconsumptionAlert(
-                            event.getDeviceId(),
-                            device.getUserId(),
-                            currentValue,
-                            maxConsumption
-                    );
-                }
+            // redeliveries after reconnects or failed flushes must not be added to the hour twice
+            if (!readingDeduplicator.isFirstDelivery(event.getDeviceId(), event.getTimestamp())) {
+                log.debug("[Replica {}] Skipping duplicate reading of device {} at {}", replicaId, event.getDeviceId(), event.getTimestamp());
+                return;
             }
 
-            LocalDate date = event.getTimestamp().toLocalDate();
-            Integer hour = event.getTimestamp().getHour();
-
-            Optional<Measurement> existingMeasurement = measurementRepository.findByDeviceIdAndDateAndHour(event.getDeviceId(), date, hour);
-
-            Measurement measurement;
-            if (existingMeasurement.isPresent()) {
-                // update existing measurement
-                measurement = existingMeasurement.get();
-                measurement.setHourlyConsumption(measurement.getHourlyConsumption() + event.getMeasurementValue());
-                measurement.setMeasurementCount(measurement.getMeasurementCount() + 1);
-                log.debug("[Replica {}] Updated measurement for device {} on {} hour {}: total={} kWh, count={}", replicaId, event.getDeviceId(), date, hour, measurement.getHourlyConsumption(), measurement.getMeasurementCount());
-            } else {
-                // create new measurement
-                measurement = Measurement.builder()
-                        .deviceId(event.getDeviceId())
-                        .date(date)
-                        .hour(hour)
-                        .hourlyConsumption(event.getMeasurementValue())
-                        .measurementCount(1)
-                        .build();
-                log.debug("[Replica {}] Created new measurement for device {} on {} hour {}: {} kWh", replicaId, event.getDeviceId(), date, hour, event.getMeasurementValue());
-            }
+            try {
+                // rules run on in-memory windows, alerts are sent once per incident
+                RuleEvaluation evaluation = ruleEngine.evaluate(event.getDeviceId(), event.getTimestamp(), event.getMeasurementValue(), device.maxConsumption());
+                if (evaluation != null) {
+                    overconsumptionDetector.check(event.getDeviceId(), device.userId(), event.getTimestamp(), evaluation);
+                }
+
+                anomalyDetector.observe(event.getDeviceId(), device.userId(), event.getTimestamp(), event.getMeasurementValue());
 
-            measurementRepository.save(measurement);
-            log.info("✅ [Replica {}] Successfully processed device data for device {} - Date: {}, Hour: {}, Total: {} kWh", replicaId, event.getDeviceId(), date, hour, measurement.getHourlyConsumption());
+                measurementAggregator.record(event.getDeviceId(), event.getTimestamp(), event.getMeasurementValue(), channel, deliveryTag);
+            } catch (RuntimeException e) {
+                // the redelivery of a reading that was not buffered must not be taken for a duplicate
+                readingDeduplicator.release(event.getDeviceId(), event.getTimestamp());
+                throw e;
+            }
+            log.debug("[Replica {}] Buffered device data for device {} - Timestamp: {}, Value: {} kWh", replicaId, event.getDeviceId(), event.getTimestamp(), event.getMeasurementValue());
         } catch (Exception e) {
             log.error("❌ [Replica {}] Error processing device data for deviceId {}: {}", replicaId, event.getDeviceId(), e.getMessage(), e);
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    private record Reading(DeviceDataMessage event, long deliveryTag, boolean redelivered) {
+    }
+}
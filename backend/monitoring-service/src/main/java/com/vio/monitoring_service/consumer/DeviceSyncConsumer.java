@@ -3,6 +3,11 @@ package com.vio.monitoring_service.consumer;
 import com.vio.monitoring_service.event.DeviceSyncEvent;
 import com.vio.monitoring_service.model.MonitoredDevice;
 import com.vio.monitoring_service.repository.MonitoredDeviceRepository;
+import com.vio.monitoring_service.rules.RuleEngine;
+import com.vio.monitoring_service.service.AnomalyDetector;
+import com.vio.monitoring_service.service.DeviceRegistry;
+import com.vio.monitoring_service.service.OverconsumptionDetector;
+import com.vio.monitoring_service.service.ReadingDeduplicator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
@@ -17,6 +22,11 @@ import java.util.Optional;
 public class DeviceSyncConsumer {
 
     private final MonitoredDeviceRepository monitoredDeviceRepository;
+    private final DeviceRegistry deviceRegistry;
+    private final ReadingDeduplicator readingDeduplicator;
+    private final OverconsumptionDetector overconsumptionDetector;
+    private final RuleEngine ruleEngine;
+    private final AnomalyDetector anomalyDetector;
 
     @RabbitListener(queues = "device.sync.queue.monitoring", containerFactory = "syncListenerContainerFactory")
     @Transactional
@@ -43,6 +53,26 @@ public class DeviceSyncConsumer {
         }
     }
 
+    @RabbitListener(queues = "#{deviceRegistryQueue.name}", containerFactory = "syncListenerContainerFactory")
+    public void refreshDeviceRegistry(DeviceSyncEvent event) {
+        switch (event.getAction()) {
+            case "CREATED":
+            case "UPDATED":
+                deviceRegistry.put(event.getDeviceId(), event.getUserId(), event.getMaxConsumption());
+                break;
+            case "DELETED":
+                deviceRegistry.remove(event.getDeviceId());
+                readingDeduplicator.forget(event.getDeviceId());
+                overconsumptionDetector.forget(event.getDeviceId());
+                ruleEngine.forget(event.getDeviceId());
+                anomalyDetector.forget(event.getDeviceId());
+                break;
+            default:
+                log.warn("Unknown action type for device registry: {}", event.getAction());
+        }
+        log.debug("Device registry updated: action={}, deviceId={}", event.getAction(), event.getDeviceId());
+    }
+
     private void handleDeviceCreated(Long deviceId, Long userId, Double maxConsumption) {
         if (monitoredDeviceRepository.existsById(deviceId)) {
             log.info("Device {} already exists in monitoring service, updating userId", deviceId);
@@ -0,0 +1,34 @@
+package com.vio.monitoring_service.consumer;
+
+import com.vio.monitoring_service.event.LiveConsumptionBatch;
+import com.vio.monitoring_service.service.DailyResponseCache;
+import com.vio.monitoring_service.service.LiveConsumptionRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LiveConsumptionConsumer {
+
+    private final LiveConsumptionRegistry liveConsumptionRegistry;
+    private final DailyResponseCache dailyResponseCache;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @RabbitListener(queues = "#{liveConsumptionQueue.name}", containerFactory = "syncListenerContainerFactory")
+    public void handleLiveConsumption(LiveConsumptionBatch batch) {
+        // the sending replica dropped its own entries when it flushed
+        if (batch.getChangedDays() != null && !Integer.valueOf(replicaId).equals(batch.getReplicaId())) {
+            batch.getChangedDays().forEach(day -> dailyResponseCache.invalidate(day.getDeviceId(), day.getDate()));
+        }
+        if (batch.getUpdates() != null && !batch.getUpdates().isEmpty()) {
+            log.debug("Received {} live hourly totals from replica {}", batch.getUpdates().size(), batch.getReplicaId());
+            liveConsumptionRegistry.publishLocal(batch.getUpdates());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.vio.monitoring_service.controller;
 
 import com.vio.monitoring_service.dto.DailyConsumptionResponse;
+import com.vio.monitoring_service.dto.DailyConsumptionSchema;
 import com.vio.monitoring_service.dto.ErrorResponse;
+import com.vio.monitoring_service.dto.PeriodConsumptionResponse;
+import com.vio.monitoring_service.dto.UserDailyConsumptionResponse;
+import com.vio.monitoring_service.service.DailyResponseCache;
 import com.vio.monitoring_service.service.MonitoringService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,9 +16,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 
@@ -31,14 +39,111 @@ public class MonitoringController {
     @PreAuthorize("hasRole('ADMIN') or @deviceSecurityService.isDeviceOwnedByUser(#deviceId, principal)")
     @Operation(summary = "Get daily energy consumption", description = "Retrieve hourly energy consumption data for a specific device on a specific date. Returns 24 hours of data (0-23) with consumption in kWh for each hour.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved daily consumption data", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DailyConsumptionResponse.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved daily consumption data", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DailyConsumptionSchema.class))),
+            @ApiResponse(responseCode = "304", description = "Not Modified: the ETag in If-None-Match is still current"),
             @ApiResponse(responseCode = "404", description = "Device not found in the monitoring system", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "403", description = "Forbidden: User does not have access to this device", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "400", description = "Bad Request (e.g., Invalid date format)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<DailyConsumptionResponse> getDailyConsumption(@PathVariable Long deviceId, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    public ResponseEntity<byte[]> getDailyConsumption(@PathVariable Long deviceId, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         log.info("GET /api/monitoring/devices/{}/consumption/daily?date={}", deviceId, date);
-        DailyConsumptionResponse response = service.getDailyConsumption(deviceId, date);
+        DailyResponseCache.CachedResponse response = service.getCachedDailyConsumption(deviceId, date);
+        // a matching If-None-Match or If-Modified-Since turns this into a 304 without body
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(response.etag())
+                .lastModified(response.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .body(response.body());
+    }
+
+    @GetMapping("/devices/{deviceId}/consumption/weekly")
+    @PreAuthorize("hasRole('ADMIN') or @deviceSecurityService.isDeviceOwnedByUser(#deviceId, principal)")
+    @Operation(summary = "Get weekly energy consumption", description = "Retrieve daily energy consumption totals for the week (Monday to Sunday) containing the given date. Returns 7 days of data with consumption in kWh for each day.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved weekly consumption data", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PeriodConsumptionResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Device not found in the monitoring system", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have access to this device", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request (e.g., Invalid date format)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<PeriodConsumptionResponse> getWeeklyConsumption(@PathVariable Long deviceId, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        log.info("GET /api/monitoring/devices/{}/consumption/weekly?date={}", deviceId, date);
+        PeriodConsumptionResponse response = service.getWeeklyConsumption(deviceId, date);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/devices/{deviceId}/consumption/monthly")
+    @PreAuthorize("hasRole('ADMIN') or @deviceSecurityService.isDeviceOwnedByUser(#deviceId, principal)")
+    @Operation(summary = "Get monthly energy consumption", description = "Retrieve daily energy consumption totals for a specific month. Returns one entry per day of the month with consumption in kWh.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved monthly consumption data", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PeriodConsumptionResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Device not found in the monitoring system", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have access to this device", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request (e.g., Invalid month)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<PeriodConsumptionResponse> getMonthlyConsumption(@PathVariable Long deviceId, @RequestParam int year, @RequestParam int month) {
+        log.info("GET /api/monitoring/devices/{}/consumption/monthly?year={}&month={}", deviceId, year, month);
+        PeriodConsumptionResponse response = service.getMonthlyConsumption(deviceId, year, month);
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/devices/{deviceId}/consumption/yearly")
+    @PreAuthorize("hasRole('ADMIN') or @deviceSecurityService.isDeviceOwnedByUser(#deviceId, principal)")
+    @Operation(summary = "Get yearly energy consumption", description = "Retrieve monthly energy consumption totals for a specific year. Returns 12 months of data with consumption in kWh for each month.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved yearly consumption data", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PeriodConsumptionResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Device not found in the monitoring system", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have access to this device", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request (e.g., Invalid year)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<PeriodConsumptionResponse> getYearlyConsumption(@PathVariable Long deviceId, @RequestParam int year) {
+        log.info("GET /api/monitoring/devices/{}/consumption/yearly?year={}", deviceId, year);
+        PeriodConsumptionResponse response = service.getYearlyConsumption(deviceId, year);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/devices/{deviceId}/consumption")
+    @PreAuthorize("hasRole('ADMIN') or @deviceSecurityService.isDeviceOwnedByUser(#deviceId, principal)")
+    @Operation(summary = "Get energy consumption for a date range", description = "Stream hourly, daily or monthly energy consumption of a device between two dates (inclusive). Only periods with readings are returned, followed by the total consumption in kWh.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Consumption data streamed", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "404", description = "Device not found in the monitoring system", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have access to this device", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request (e.g., Invalid range or granularity)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> getConsumption(@PathVariable Long deviceId,
+                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(defaultValue = "hour") String granularity) {
+        log.info("GET /api/monitoring/devices/{}/consumption?from={}&to={}&granularity={}", deviceId, from, to, granularity);
+        StreamingResponseBody body = service.streamConsumption(deviceId, from, to, granularity);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/users/{userId}/consumption/daily")
+    @PreAuthorize("hasRole('ADMIN') or @deviceSecurityService.isSameUser(#userId, principal)")
+    @Operation(summary = "Get daily energy consumption of all devices of a user", description = "Retrieve hourly energy consumption data for every device owned by the user on a specific date in one response. Each device has 24 hours of data (0-23) with consumption in kWh for each hour.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved daily consumption data", content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserDailyConsumptionResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User can only view their own devices", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request (e.g., Invalid date format)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<UserDailyConsumptionResponse> getUserDailyConsumption(@PathVariable Long userId, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        log.info("GET /api/monitoring/users/{}/consumption/daily?date={}", userId, date);
+        UserDailyConsumptionResponse response = service.getUserDailyConsumption(userId, date);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/devices/{deviceId}/consumption/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or @deviceSecurityService.isDeviceOwnedByUser(#deviceId, principal)")
+    @Operation(summary = "Stream live energy consumption", description = "Server-Sent Events stream of the running hourly total of a device. The newest stored hour is sent first; afterwards a 'consumption' event is pushed whenever new readings of the device are stored. Slow clients receive only the latest total.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened", content = @Content(mediaType = "text/event-stream")),
+            @ApiResponse(responseCode = "404", description = "Device not found in the monitoring system", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have access to this device", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public SseEmitter streamLiveConsumption(@PathVariable Long deviceId) {
+        log.info("GET /api/monitoring/devices/{}/consumption/live", deviceId);
+        return service.streamLiveConsumption(deviceId);
+    }
 }
\ No newline at end of file
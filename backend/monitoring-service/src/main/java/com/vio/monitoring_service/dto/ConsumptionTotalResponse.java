@@ -0,0 +1,16 @@
+package com.vio.monitoring_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConsumptionTotalResponse {
+    private LocalDate periodStart; // first day of the day or month
+    private Double consumption; // kWh for this period
+    private Integer measurementCount; // nr of readings aggregated
+}
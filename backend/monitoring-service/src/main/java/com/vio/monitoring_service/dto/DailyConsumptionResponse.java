@@ -1,18 +1,53 @@
 package com.vio.monitoring_service.dto;
 
-import lombok.*;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import java.time.LocalDate;
-import java.util.List;
 
-@Getter
-@Setter
-@AllArgsConstructor
-@NoArgsConstructor
-@Builder
+/**
+ * Hourly consumption of one device on one day, held in fixed 24-slot arrays indexed by hour.
+ * Serialized by {@link DailyConsumptionResponseSerializer} as
+ * {@code {deviceId, date, hourlyData: [{hour, consumption, measurementCount}], totalDailyConsumption}},
+ * which {@link DailyConsumptionSchema} documents. The arrays stay internal.
+ */
+@JsonSerialize(using = DailyConsumptionResponseSerializer.class)
 public class DailyConsumptionResponse {
-    private Long deviceId;
-    private LocalDate date;
-    private List<HourlyConsumptionResponse> hourlyData;
-    private Double totalDailyConsumption; // sum of all hourly consumptions
-}
\ No newline at end of file
+    public static final int HOURS_PER_DAY = 24;
+
+    private final Long deviceId;
+    private final LocalDate date;
+    private final double[] hourlyConsumption = new double[HOURS_PER_DAY]; // kWh per hour, 0 without readings
+    private final int[] measurementCounts = new int[HOURS_PER_DAY]; // nr of readings aggregated per hour
+    private double totalDailyConsumption; // sum of all hourly consumptions
+
+    public DailyConsumptionResponse(Long deviceId, LocalDate date) {
+        this.deviceId = deviceId;
+        this.date = date;
+    }
+
+    public void addHour(int hour, double consumption, int measurementCount) {
+        hourlyConsumption[hour] += consumption;
+        measurementCounts[hour] += measurementCount;
+        totalDailyConsumption += consumption;
+    }
+
+    public Long getDeviceId() {
+        return deviceId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public double getConsumption(int hour) {
+        return hourlyConsumption[hour];
+    }
+
+    public int getMeasurementCount(int hour) {
+        return measurementCounts[hour];
+    }
+
+    public double getTotalDailyConsumption() {
+        return totalDailyConsumption;
+    }
+}
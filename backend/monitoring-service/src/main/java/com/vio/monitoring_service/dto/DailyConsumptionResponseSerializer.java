@@ -0,0 +1,33 @@
+package com.vio.monitoring_service.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+// writes the 24 hourly slots straight from the arrays, without an object per hour
+public class DailyConsumptionResponseSerializer extends StdSerializer<DailyConsumptionResponse> {
+
+    public DailyConsumptionResponseSerializer() {
+        super(DailyConsumptionResponse.class);
+    }
+
+    @Override
+    public void serialize(DailyConsumptionResponse value, JsonGenerator json, SerializerProvider provider) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("deviceId", value.getDeviceId());
+        json.writeStringField("date", value.getDate().toString());
+        json.writeArrayFieldStart("hourlyData");
+        for (int hour = 0; hour < DailyConsumptionResponse.HOURS_PER_DAY; hour++) {
+            json.writeStartObject();
+            json.writeNumberField("hour", hour);
+            json.writeNumberField("consumption", value.getConsumption(hour));
+            json.writeNumberField("measurementCount", value.getMeasurementCount(hour));
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeNumberField("totalDailyConsumption", value.getTotalDailyConsumption());
+        json.writeEndObject();
+    }
+}
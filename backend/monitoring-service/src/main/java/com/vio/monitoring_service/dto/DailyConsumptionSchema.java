@@ -0,0 +1,29 @@
+package com.vio.monitoring_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * OpenAPI description of the JSON written by {@link DailyConsumptionResponseSerializer}; only
+ * referenced from schema annotations, never instantiated.
+ */
+@Getter
+@Schema(name = "DailyConsumptionResponse", description = "Hourly consumption of one device on one day")
+public class DailyConsumptionSchema {
+    private Long deviceId;
+    private LocalDate date;
+    @Schema(description = "24 entries, hours 0-23; hours without readings have zero consumption")
+    private List<HourlyData> hourlyData;
+    private Double totalDailyConsumption; // sum of all hourly consumptions
+
+    @Getter
+    @Schema(name = "HourlyConsumptionResponse")
+    public static class HourlyData {
+        private int hour;
+        private double consumption; // kWh
+        private int measurementCount; // nr of readings aggregated
+    }
+}
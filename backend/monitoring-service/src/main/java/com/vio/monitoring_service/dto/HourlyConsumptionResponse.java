@@ -1,14 +0,0 @@
-package com.vio.monitoring_service.dto;
-
-import lombok.*;
-
-@Getter
-@Setter
-@AllArgsConstructor
-@NoArgsConstructor
-@Builder
-public class HourlyConsumptionResponse {
-    private Integer hour; // 0-23
-    private Double consumption; // kWh for this hour
-    private Integer measurementCount; // nr of readings aggregated
-}
\ No newline at end of file
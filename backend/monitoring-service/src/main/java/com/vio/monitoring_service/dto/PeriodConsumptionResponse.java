@@ -0,0 +1,19 @@
+package com.vio.monitoring_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PeriodConsumptionResponse {
+    private Long deviceId;
+    private LocalDate startDate;
+    private LocalDate endDate; // inclusive
+    private List<ConsumptionTotalResponse> data; // one entry per day, or per month for a year
+    private Double totalConsumption;
+}
@@ -0,0 +1,21 @@
+package com.vio.monitoring_service.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserDailyConsumptionResponse {
+    private Long userId;
+    private LocalDate date;
+    @ArraySchema(schema = @Schema(implementation = DailyConsumptionSchema.class))
+    private List<DailyConsumptionResponse> devices; // one 24h series per owned device
+    private Double totalDailyConsumption; // sum over all devices
+}
@@ -0,0 +1,27 @@
+package com.vio.monitoring_service.event;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AnomalyEvent {
+    private Long deviceId;
+    private Long userId;
+    private Type anomalyType;
+    private Double value;
+    private Double expected; // baseline mean, previous reading or the repeated value
+    private Double deviation; // in standard deviations of the hour-of-day baseline, null for flatlines
+    private LocalDateTime readingTimestamp;
+    private LocalDateTime timestamp;
+    private String message;
+
+    public enum Type {
+        SUDDEN_JUMP,
+        FLATLINE,
+        BASELINE_DEVIATION
+    }
+}
@@ -0,0 +1,15 @@
+package com.vio.monitoring_service.event;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConsumptionDay {
+    private Long deviceId;
+    private LocalDate date;
+}
@@ -0,0 +1,17 @@
+package com.vio.monitoring_service.event;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LiveConsumptionBatch {
+    private Integer replicaId;
+    private List<LiveConsumptionUpdate> updates;
+    // days the sending replica flushed readings for, cached responses of them are stale on every replica
+    private List<ConsumptionDay> changedDays;
+}
@@ -0,0 +1,18 @@
+package com.vio.monitoring_service.event;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LiveConsumptionUpdate {
+    private Long deviceId;
+    private LocalDate date;
+    private Integer hour;
+    private Double consumption; // kWh of this hour so far
+    private Integer measurementCount;
+}
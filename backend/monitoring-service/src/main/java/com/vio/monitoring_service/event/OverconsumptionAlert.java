@@ -11,9 +11,20 @@ import java.time.LocalDateTime;
 public class OverconsumptionAlert {
     private Long deviceId;
     private Long userId;
+    private Type type;
+    // the alert rule that fired, e.g. READING or SLIDING_SUM(60m)
+    private String rule;
     private Double currentConsumption;
     private Double maxConsumption;
     private Double exceededBy;
+    private Double peakConsumption;
+    private Integer readingsOverLimit;
+    private LocalDateTime exceededSince;
     private LocalDateTime timestamp;
     private String message;
-}
\ No newline at end of file
+
+    public enum Type {
+        EXCEEDED,
+        STILL_EXCEEDING
+    }
+}
@@ -0,0 +1,33 @@
+package com.vio.monitoring_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "alert_rules", indexes = @Index(name = "idx_alert_rules_device", columnList = "device_id"))
+public class AlertRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long alertRuleId;
+
+    // null applies the rule to every device without rules of its own
+    private Long deviceId;
+
+    // READING, HOURLY_TOTAL, SLIDING_SUM or EWMA
+    @Column(nullable = false)
+    private String ruleType;
+
+    // SLIDING_SUM only
+    private Integer windowMinutes;
+
+    // EWMA only, weight of the newest reading
+    private Double alpha;
+
+    // kWh, the device's max consumption when null
+    private Double threshold;
+}
@@ -0,0 +1,31 @@
+package com.vio.monitoring_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "daily_consumption", uniqueConstraints = @UniqueConstraint(name = "uk_daily_consumption_device_date", columnNames = {"device_id", "date"}))
+public class DailyConsumption {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long dailyConsumptionId;
+
+    @Column(nullable = false)
+    private Long deviceId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private Double consumption;
+
+    @Column(nullable = false)
+    private Integer measurementCount;
+}
@@ -0,0 +1,33 @@
+package com.vio.monitoring_service.model;
+
+import com.vio.monitoring_service.util.TimestampWindow;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "ingest_watermarks")
+public class IngestWatermark {
+    @Id
+    private Long deviceId;
+
+    // newest reading timestamp whose consumption has been committed
+    @Column(nullable = false)
+    private LocalDateTime highWaterMark;
+
+    // committed reading timestamps within the dedup horizon below the mark, see TimestampWindow.encode
+    @Lob
+    @Column(length = 65535)
+    private byte[] recentTimestamps;
+
+    // rows written before recent timestamps were kept only know the mark
+    public long[] committedTimestamps() {
+        return recentTimestamps == null ? new long[]{TimestampWindow.toMillis(highWaterMark)} : TimestampWindow.decode(recentTimestamps);
+    }
+}
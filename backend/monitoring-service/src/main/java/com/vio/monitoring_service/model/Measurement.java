@@ -12,17 +12,18 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @Builder
 @Table(name = "measurements")
+@IdClass(MeasurementId.class)
 public class Measurement {
+    // (device_id, date, hour) is the clustered key; the table is range-partitioned by date
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long measurementId;
-
     @Column(nullable = false)
     private Long deviceId;
 
+    @Id
     @Column(nullable = false)
     private LocalDate date;
 
+    @Id
     @Column(nullable = false)
     private int hour;
 
@@ -0,0 +1,17 @@
+package com.vio.monitoring_service.model;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class MeasurementId implements Serializable {
+    private Long deviceId;
+    private LocalDate date;
+    private int hour;
+}
@@ -0,0 +1,32 @@
+package com.vio.monitoring_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "monthly_consumption", uniqueConstraints = @UniqueConstraint(name = "uk_monthly_consumption_device_year_month", columnNames = {"device_id", "year", "month"}))
+public class MonthlyConsumption {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long monthlyConsumptionId;
+
+    @Column(nullable = false)
+    private Long deviceId;
+
+    @Column(nullable = false)
+    private int year;
+
+    @Column(nullable = false)
+    private int month; // 1-12
+
+    @Column(nullable = false)
+    private Double consumption;
+
+    @Column(nullable = false)
+    private Integer measurementCount;
+}
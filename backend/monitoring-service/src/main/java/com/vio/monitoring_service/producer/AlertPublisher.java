@@ -1,35 +1,253 @@
 package com.vio.monitoring_service.producer;
 
 import com.vio.monitoring_service.config.RabbitMQConfig;
+import com.vio.monitoring_service.event.AnomalyEvent;
 import com.vio.monitoring_service.event.OverconsumptionAlert;
-import lombok.RequiredArgsConstructor;
+import com.vio.monitoring_service.rules.RuleEvaluation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Hands overconsumption alerts and anomaly events to a bounded queue that a dedicated thread
+ * drains in batches to the sync broker.
+ * Every batch is published on one channel and waits for publisher confirms, failed batches are
+ * retried with backoff. Callers on the ingest path only enqueue, so a slow or unreachable sync
+ * broker never delays ingest; when the queue is full the alert is refused instead.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AlertPublisher {
-    @Qualifier("alertRabbitTemplate")
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
     private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.alerts.publisher.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.alerts.publisher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.alerts.publisher.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${app.alerts.publisher.max-attempts:5}")
+    private int maxAttempts;
 
-    public void publishOverconsumptionAlert(Long deviceId, Long userId, Double current, Double max) {
-        Double exceeded = current - max;
+    @Value("${app.alerts.publisher.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${app.alerts.publisher.max-retry-backoff-ms:30000}")
+    private long maxRetryBackoffMs;
+
+    private final ConcurrentLinkedQueue<PendingAlert> queue = new ConcurrentLinkedQueue<>();
+    // the queue has no O(1) size, this counter bounds it
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    private volatile boolean running = true;
+    private Thread publisherThread;
+
+    // the alert template has its own connection with publisher confirms enabled
+    public AlertPublisher(@Qualifier("alertRabbitTemplate") RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+    }
 
-        OverconsumptionAlert alert = OverconsumptionAlert.builder()
+    @PostConstruct
+    public void start() {
+        Gauge.builder("monitoring.alerts.publisher.queue.size", queued, AtomicInteger::get)
+                .description("Alerts waiting for the publisher thread")
+                .register(meterRegistry);
+        FunctionCounter.builder("monitoring.alerts.publisher.confirmed", confirmed, LongAdder::sum)
+                .description("Alerts confirmed by the sync broker")
+                .register(meterRegistry);
+        FunctionCounter.builder("monitoring.alerts.publisher.refused", refused, LongAdder::sum)
+                .description("Alerts refused because the publisher queue was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("monitoring.alerts.publisher.abandoned", abandoned, LongAdder::sum)
+                .description("Alerts given up after the last publish attempt")
+                .register(meterRegistry);
+
+        publisherThread = new Thread(this::run, "alert-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(publisherThread);
+        publisherThread.join(confirmTimeoutMs * 2);
+        if (queued.get() > 0) {
+            log.warn("⚠️ {} alerts were not published before shutdown", queued.get());
+        }
+    }
+
+    // false when the queue is full
+    public boolean publishOverconsumptionAlert(Long deviceId, Long userId, RuleEvaluation evaluation, LocalDateTime exceededSince) {
+        double current = evaluation.observed();
+
+        return offer(OverconsumptionAlert.builder()
                 .deviceId(deviceId)
                 .userId(userId)
+                .type(OverconsumptionAlert.Type.EXCEEDED)
+                .rule(evaluation.rule())
                 .currentConsumption(current)
-                .maxConsumption(max)
-                .exceededBy(exceeded)
+                .maxConsumption(evaluation.threshold())
+                .exceededBy(current - evaluation.threshold())
+                .peakConsumption(current)
+                .readingsOverLimit(1)
+                .exceededSince(exceededSince)
                 .timestamp(LocalDateTime.now())
-                .message(String.format("Device '%d' exceeded maximum consumption limit by %.2f kWh (Current: %.2f kWh, Max: %.2f kWh)", deviceId, exceeded, current, max))
-                .build();
+                .build(), evaluation.label());
+    }
+
+    // false when the queue is full
+    public boolean publishAnomaly(AnomalyEvent anomaly) {
+        return offer(new PendingAlert(RabbitMQConfig.ANOMALY_EXCHANGE, RabbitMQConfig.ANOMALY_ROUTING_KEY, anomaly, null));
+    }
+
+    // false when the queue is full
+    public boolean publishStillExceedingAlert(Long deviceId, Long userId, RuleEvaluation last, double peak, int readingsOverLimit, LocalDateTime exceededSince) {
+        return offer(OverconsumptionAlert.builder()
+                .deviceId(deviceId)
+                .userId(userId)
+                .type(OverconsumptionAlert.Type.STILL_EXCEEDING)
+                .rule(last.rule())
+                .currentConsumption(last.observed())
+                .maxConsumption(last.threshold())
+                .exceededBy(peak - last.threshold())
+                .peakConsumption(peak)
+                .readingsOverLimit(readingsOverLimit)
+                .exceededSince(exceededSince)
+                .timestamp(LocalDateTime.now())
+                .build(), last.label());
+    }
+
+    private boolean offer(OverconsumptionAlert alert, String label) {
+        return offer(new PendingAlert(RabbitMQConfig.OVERCONSUMPTION_EXCHANGE, RabbitMQConfig.OVERCONSUMPTION_ROUTING_KEY, alert, label));
+    }
+
+    private boolean offer(PendingAlert pending) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            refused.increment();
+            return false;
+        }
+
+        queue.offer(pending);
+        LockSupport.unpark(publisherThread);
+        return true;
+    }
+
+    private void run() {
+        List<PendingAlert> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            PendingAlert pending;
+            while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+                queued.decrementAndGet();
+                // formatted here rather than on the ingest thread
+                if (pending.event() instanceof OverconsumptionAlert alert) {
+                    alert.setMessage(message(alert, pending.label()));
+                } else if (pending.event() instanceof AnomalyEvent anomaly) {
+                    anomaly.setMessage(message(anomaly));
+                }
+                batch.add(pending);
+            }
+
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            publishWithRetry(batch);
+            batch.clear();
+        }
+    }
+
+    private void publishWithRetry(List<PendingAlert> batch) {
+        long backoff = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rabbitTemplate.invoke(operations -> {
+                    for (PendingAlert pending : batch) {
+                        operations.convertAndSend(pending.exchange(), pending.routingKey(), pending.event());
+                    }
+                    // throws when the broker nacks or does not confirm in time
+                    operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                    return null;
+                });
+                confirmed.add(batch.size());
+                log.info("✅ Published {} alerts via sync broker", batch.size());
+                return;
+            } catch (MessageConversionException e) {
+                abandoned.add(batch.size());
+                log.error("❌ Dropping {} alerts that cannot be serialized: {}", batch.size(), e.getMessage());
+                return;
+            } catch (Exception e) {
+                // a retry after a lost confirm can deliver an alert twice, which beats losing it
+                if (attempt >= maxAttempts || !running) {
+                    abandoned.add(batch.size());
+                    log.error("❌ Giving up on {} alerts after {} attempts: {}", batch.size(), attempt, e.getMessage());
+                    return;
+                }
+                log.warn("⚠️ Publishing {} alerts failed (attempt {}/{}), retrying in {} ms: {}", batch.size(), attempt, maxAttempts, backoff, e.getMessage());
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, maxRetryBackoffMs);
+            }
+        }
+    }
+
+    // new alerts unpark the thread, so park until the deadline has really passed
+    private void sleep(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private static String message(OverconsumptionAlert alert, String label) {
+        if (alert.getType() == OverconsumptionAlert.Type.STILL_EXCEEDING) {
+            return String.format("Device '%d' is still above its maximum consumption limit since %s: %d readings over the limit, peak %.2f kWh exceeded it by %.2f kWh (%s: %.2f kWh, Max: %.2f kWh)",
+                    alert.getDeviceId(), alert.getExceededSince(), alert.getReadingsOverLimit(), alert.getPeakConsumption(), alert.getExceededBy(), label, alert.getCurrentConsumption(), alert.getMaxConsumption());
+        }
+        return String.format("Device '%d' exceeded maximum consumption limit by %.2f kWh (%s: %.2f kWh, Max: %.2f kWh)",
+                alert.getDeviceId(), alert.getExceededBy(), label, alert.getCurrentConsumption(), alert.getMaxConsumption());
+    }
+
+    private static String message(AnomalyEvent anomaly) {
+        return switch (anomaly.getAnomalyType()) {
+            case SUDDEN_JUMP -> String.format("Device '%d' jumped from %.2f kWh to %.2f kWh (%.1f standard deviations)",
+                    anomaly.getDeviceId(), anomaly.getExpected(), anomaly.getValue(), anomaly.getDeviation());
+            case FLATLINE -> String.format("Device '%d' has reported %.2f kWh unchanged for several readings, the meter may be stuck",
+                    anomaly.getDeviceId(), anomaly.getValue());
+            case BASELINE_DEVIATION -> String.format("Device '%d' reported %.2f kWh where about %.2f kWh is usual at this hour (%.1f standard deviations)",
+                    anomaly.getDeviceId(), anomaly.getValue(), anomaly.getExpected(), anomaly.getDeviation());
+        };
+    }
 
-        rabbitTemplate.convertAndSend(RabbitMQConfig.OVERCONSUMPTION_EXCHANGE, RabbitMQConfig.OVERCONSUMPTION_ROUTING_KEY, alert);
-        log.info("✅ Published overconsumption alert for device {} to user {} via sync broker", deviceId, userId);
+    // label is the rule label of overconsumption alerts
+    private record PendingAlert(String exchange, String routingKey, Object event, String label) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.vio.monitoring_service.producer;
+
+import com.vio.monitoring_service.config.RabbitMQConfig;
+import com.vio.monitoring_service.event.ConsumptionDay;
+import com.vio.monitoring_service.event.LiveConsumptionBatch;
+import com.vio.monitoring_service.event.LiveConsumptionUpdate;
+import com.vio.monitoring_service.repository.MeasurementRepository;
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes what a flush changed to every replica, on its own thread so neither the query nor the
+ * broker send delays ingest: the live totals of the newest flushed hour per device, read back from
+ * the measurements table, and the flushed days, whose cached daily responses the other replicas
+ * drop. Hours submitted while a publish is running are coalesced and go out with the next one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveConsumptionPublisher {
+    private static final Comparator<HourlyDelta> HOUR_ORDER = Comparator
+            .comparing(HourlyDelta::date)
+            .thenComparingInt(HourlyDelta::hour);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeasurementRepository measurementRepository;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.live.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.response-cache.broadcast-invalidations:true}")
+    private boolean broadcastInvalidations;
+
+    // newest flushed hour per device and flushed days not published yet, both guarded by pending
+    private final Map<Long, HourlyDelta> pending = new HashMap<>();
+    private final Set<Day> pendingDays = new HashSet<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-consumption-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // hours are keys only, their totals are read back when they are published
+    public void submit(Collection<HourlyDelta> hours) {
+        if ((!enabled && !broadcastInvalidations) || hours.isEmpty()) {
+            return;
+        }
+
+        synchronized (pending) {
+            for (HourlyDelta hour : hours) {
+                if (enabled) {
+                    pending.merge(hour.deviceId(), hour, (a, b) -> HOUR_ORDER.compare(a, b) >= 0 ? a : b);
+                }
+                if (broadcastInvalidations) {
+                    pendingDays.add(new Day(hour.deviceId(), hour.date()));
+                }
+            }
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                scheduled.set(false);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void drain() {
+        boolean more;
+        try {
+            List<HourlyDelta> keys;
+            List<ConsumptionDay> days = new ArrayList<>();
+            synchronized (pending) {
+                keys = new ArrayList<>(pending.values());
+                pending.clear();
+                pendingDays.forEach(day -> days.add(new ConsumptionDay(day.deviceId(), day.date())));
+                pendingDays.clear();
+            }
+            publish(keys, days);
+        } finally {
+            scheduled.set(false);
+            synchronized (pending) {
+                more = !pending.isEmpty() || !pendingDays.isEmpty();
+            }
+        }
+        // hours may have been submitted after the last drain and before the flag was cleared
+        if (more && scheduled.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void publish(List<HourlyDelta> keys, List<ConsumptionDay> days) {
+        try {
+            List<LiveConsumptionUpdate> updates = new ArrayList<>(keys.size());
+            if (!keys.isEmpty()) {
+                measurementRepository.forEachHourlyTotal(keys, (deviceId, date, hour, consumption, measurementCount) -> updates.add(LiveConsumptionUpdate.builder()
+                        .deviceId(deviceId)
+                        .date(date)
+                        .hour(hour)
+                        .consumption(consumption)
+                        .measurementCount(measurementCount)
+                        .build()));
+            }
+
+            LiveConsumptionBatch batch = LiveConsumptionBatch.builder()
+                    .replicaId(replicaId)
+                    .updates(updates)
+                    .changedDays(days)
+                    .build();
+            rabbitTemplate.convertAndSend(RabbitMQConfig.LIVE_CONSUMPTION_EXCHANGE, "", batch);
+            log.debug("Published {} live hourly totals and {} changed days via sync broker", updates.size(), days.size());
+        } catch (Exception e) {
+            // best effort: the next flush publishes fresh totals, and missed days expire from the caches
+            log.warn("[Replica {}] Failed to publish live hourly totals and changed days: {}", replicaId, e.getMessage());
+        }
+    }
+
+    private record Day(long deviceId, LocalDate date) {
+    }
+}
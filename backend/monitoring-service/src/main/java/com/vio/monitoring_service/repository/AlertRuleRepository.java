@@ -0,0 +1,7 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.model.AlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+}
@@ -0,0 +1,78 @@
+package com.vio.monitoring_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+
+/**
+ * Reads consumption of one device over a date range row by row. The MySQL driver streams the
+ * result set instead of buffering it when the fetch size is Integer.MIN_VALUE, so memory does not
+ * grow with the range.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConsumptionRangeRepository {
+    private static final String HOURLY_SQL = "SELECT date, hour, hourly_consumption, measurement_count FROM measurements " +
+            "WHERE device_id = ? AND date BETWEEN ? AND ? ORDER BY date, hour";
+    private static final String DAILY_SQL = "SELECT date, 0, consumption, measurement_count FROM daily_consumption " +
+            "WHERE device_id = ? AND date BETWEEN ? AND ? ORDER BY date";
+    private static final String MONTHLY_SQL = "SELECT MAKEDATE(year, 1) + INTERVAL (month - 1) MONTH, 0, consumption, measurement_count FROM monthly_consumption " +
+            "WHERE device_id = ? AND (year * 100 + month) BETWEEN ? AND ? ORDER BY year, month";
+
+    private static final String ARCHIVE_SQL = "SELECT device_id, date, hour, hourly_consumption, measurement_count FROM measurements " +
+            "WHERE date BETWEEN ? AND ? ORDER BY device_id, date, hour";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void streamHourly(Long deviceId, LocalDate startDate, LocalDate endDate, RowConsumer consumer) {
+        stream(HOURLY_SQL, deviceId, Date.valueOf(startDate), Date.valueOf(endDate), consumer);
+    }
+
+    public void streamDaily(Long deviceId, LocalDate startDate, LocalDate endDate, RowConsumer consumer) {
+        stream(DAILY_SQL, deviceId, Date.valueOf(startDate), Date.valueOf(endDate), consumer);
+    }
+
+    public void streamMonthly(Long deviceId, LocalDate startDate, LocalDate endDate, RowConsumer consumer) {
+        int startMonth = startDate.getYear() * 100 + startDate.getMonthValue();
+        int endMonth = endDate.getYear() * 100 + endDate.getMonthValue();
+        stream(MONTHLY_SQL, deviceId, startMonth, endMonth, consumer);
+    }
+
+    // every device's hourly rows between the two dates in primary key order, used to build month archives
+    public void streamAllDevicesHourly(LocalDate startDate, LocalDate endDate, DeviceRowConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(ARCHIVE_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setDate(1, Date.valueOf(startDate));
+            ps.setDate(2, Date.valueOf(endDate));
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getInt(3), rs.getDouble(4), rs.getInt(5)));
+    }
+
+    private void stream(String sql, Long deviceId, Object start, Object end, RowConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setLong(1, deviceId);
+            ps.setObject(2, start);
+            ps.setObject(3, end);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getDate(1).toLocalDate(), rs.getInt(2), rs.getDouble(3), rs.getInt(4)));
+    }
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(LocalDate date, int hour, double consumption, int measurementCount);
+    }
+
+    @FunctionalInterface
+    public interface DeviceRowConsumer {
+        void accept(long deviceId, LocalDate date, int hour, double consumption, int measurementCount);
+    }
+}
@@ -0,0 +1,11 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.model.DailyConsumption;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyConsumptionRepository extends JpaRepository<DailyConsumption, Long>, DailyConsumptionRepositoryCustom {
+    List<DailyConsumption> findByDeviceIdAndDateBetweenOrderByDateAsc(Long deviceId, LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,14 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface DailyConsumptionRepositoryCustom {
+    // adds the hourly deltas to their (deviceId, date) rows, creating rows when missing
+    void addAll(Collection<HourlyDelta> deltas);
+
+    // recomputes the rows of the given days from the hourly measurements, returns the affected row count
+    int rebuild(LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,57 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+@RequiredArgsConstructor
+public class DailyConsumptionRepositoryImpl implements DailyConsumptionRepositoryCustom {
+    private static final String UPSERT_SQL = "INSERT INTO daily_consumption (device_id, date, consumption, measurement_count) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE consumption = consumption + VALUES(consumption), measurement_count = measurement_count + VALUES(measurement_count)";
+
+    private static final String REBUILD_SQL = "INSERT INTO daily_consumption (device_id, date, consumption, measurement_count) " +
+            "SELECT device_id, date, SUM(hourly_consumption), SUM(measurement_count) FROM measurements WHERE date BETWEEN ? AND ? GROUP BY device_id, date " +
+            "ON DUPLICATE KEY UPDATE consumption = VALUES(consumption), measurement_count = VALUES(measurement_count)";
+
+    private static final Comparator<DayKey> KEY_ORDER = Comparator.comparing(DayKey::deviceId).thenComparing(DayKey::date);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Override
+    public void addAll(Collection<HourlyDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // one row per device-day instead of one per hour
+        Map<DayKey, double[]> totals = new TreeMap<>(KEY_ORDER);
+        for (HourlyDelta delta : deltas) {
+            double[] total = totals.computeIfAbsent(new DayKey(delta.deviceId(), delta.date()), key -> new double[2]);
+            total[0] += delta.consumption();
+            total[1] += delta.measurementCount();
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, totals.entrySet(), batchSize, (ps, entry) -> {
+            ps.setLong(1, entry.getKey().deviceId());
+            ps.setDate(2, Date.valueOf(entry.getKey().date()));
+            ps.setDouble(3, entry.getValue()[0]);
+            ps.setInt(4, (int) entry.getValue()[1]);
+        });
+    }
+
+    @Override
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.update(REBUILD_SQL, Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    private record DayKey(Long deviceId, LocalDate date) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.model.IngestWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IngestWatermarkRepository extends JpaRepository<IngestWatermark, Long>, IngestWatermarkRepositoryCustom {
+}
@@ -0,0 +1,9 @@
+package com.vio.monitoring_service.repository;
+
+import java.util.Map;
+
+public interface IngestWatermarkRepositoryCustom {
+    // adds the committed reading timestamps (epoch millis, UTC) of every device to its row and
+    // raises the high-water mark to the newest of them, never lowers it
+    void advanceAll(Map<Long, long[]> committed);
+}
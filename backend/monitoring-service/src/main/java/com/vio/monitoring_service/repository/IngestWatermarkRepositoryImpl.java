@@ -0,0 +1,140 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.util.TimestampWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class IngestWatermarkRepositoryImpl implements IngestWatermarkRepositoryCustom {
+    private static final String LOCK_SQL = "SELECT device_id, high_water_mark, LEFT(recent_timestamps, 8) AS oldest, LENGTH(recent_timestamps) AS encoded_length " +
+            "FROM ingest_watermarks WHERE device_id IN (%s) FOR UPDATE";
+    private static final String RECENT_SQL = "SELECT device_id, high_water_mark, recent_timestamps FROM ingest_watermarks WHERE device_id IN (%s)";
+    private static final String ADVANCE_SQL = "INSERT INTO ingest_watermarks (device_id, high_water_mark, recent_timestamps) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE high_water_mark = GREATEST(high_water_mark, VALUES(high_water_mark)), recent_timestamps = VALUES(recent_timestamps)";
+    private static final String APPEND_SQL = "UPDATE ingest_watermarks SET high_water_mark = ?, recent_timestamps = CONCAT(recent_timestamps, ?) WHERE device_id = ?";
+
+    // half the column, so an append never overflows it; larger encodings are rewritten from the window
+    private static final int MAX_ENCODED_BYTES = 32_768;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Value("${app.dedup.horizon-ms:21600000}")
+    private long horizonMs;
+
+    @Value("${app.dedup.max-timestamps:4096}")
+    private int maxTimestamps;
+
+    @Override
+    public void advanceAll(Map<Long, long[]> committed) {
+        if (committed.isEmpty()) {
+            return;
+        }
+
+        // device order keeps row locks consistent with the other replicas
+        List<Long> deviceIds = new ArrayList<>(new TreeSet<>(committed.keySet()));
+        Map<Long, Stored> stored = new HashMap<>();
+        forEachChunk(deviceIds, chunk ->
+                // locked until the flush commits, so timestamps committed by another replica meanwhile are not overwritten
+                jdbcTemplate.query(LOCK_SQL.formatted(placeholders(chunk)), rs -> {
+                    byte[] oldest = rs.getBytes("oldest");
+                    stored.put(rs.getLong("device_id"), new Stored(
+                            TimestampWindow.toMillis(rs.getTimestamp("high_water_mark").toLocalDateTime()),
+                            oldest != null && oldest.length == 8 ? TimestampWindow.first(oldest) : null,
+                            rs.getInt("encoded_length")));
+                }, chunk.toArray()));
+
+        // readings newer than everything stored only extend the encoding; a row is rewritten from its window when a
+        // reading arrives out of order, when its oldest timestamp is a whole horizon behind or when it grows too large
+        List<Row> appends = new ArrayList<>();
+        Map<Long, long[]> rewrites = new TreeMap<>();
+        for (Long deviceId : deviceIds) {
+            long[] timestamps = committed.get(deviceId).clone();
+            if (timestamps.length == 0) {
+                continue;
+            }
+            Arrays.sort(timestamps);
+            long newest = timestamps[timestamps.length - 1];
+
+            Stored row = stored.get(deviceId);
+            if (row != null && row.oldest() != null && timestamps[0] > row.highWaterMark() && row.oldest() >= newest - 2 * horizonMs) {
+                byte[] suffix = TimestampWindow.encodeAfter(row.highWaterMark(), timestamps);
+                if (row.encodedLength() + suffix.length <= MAX_ENCODED_BYTES) {
+                    appends.add(new Row(deviceId, newest, suffix));
+                    continue;
+                }
+            }
+            rewrites.put(deviceId, timestamps);
+        }
+
+        jdbcTemplate.batchUpdate(APPEND_SQL, appends, batchSize, (ps, row) -> {
+            ps.setTimestamp(1, toTimestamp(row.highWaterMark()));
+            ps.setBytes(2, row.recentTimestamps());
+            ps.setLong(3, row.deviceId());
+        });
+        rewrite(rewrites, stored);
+    }
+
+    private void rewrite(Map<Long, long[]> rewrites, Map<Long, Stored> stored) {
+        if (rewrites.isEmpty()) {
+            return;
+        }
+
+        Map<Long, TimestampWindow> windows = new HashMap<>();
+        List<Long> existing = rewrites.keySet().stream().filter(stored::containsKey).toList();
+        forEachChunk(existing, chunk ->
+                jdbcTemplate.query(RECENT_SQL.formatted(placeholders(chunk)), rs -> {
+                    byte[] recent = rs.getBytes("recent_timestamps");
+                    long[] seen = recent == null
+                            ? new long[]{TimestampWindow.toMillis(rs.getTimestamp("high_water_mark").toLocalDateTime())}
+                            : TimestampWindow.decode(recent);
+                    windows.put(rs.getLong("device_id"), new TimestampWindow(horizonMs, maxTimestamps, seen));
+                }, chunk.toArray()));
+
+        List<Row> rows = new ArrayList<>(rewrites.size());
+        rewrites.forEach((deviceId, timestamps) -> {
+            TimestampWindow window = windows.computeIfAbsent(deviceId, id -> new TimestampWindow(horizonMs, maxTimestamps));
+            for (long timestamp : timestamps) {
+                window.add(timestamp);
+            }
+            rows.add(new Row(deviceId, timestamps[timestamps.length - 1], TimestampWindow.encode(window.toArray())));
+        });
+
+        jdbcTemplate.batchUpdate(ADVANCE_SQL, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, row.deviceId());
+            ps.setTimestamp(2, toTimestamp(row.highWaterMark()));
+            ps.setBytes(3, row.recentTimestamps());
+        });
+    }
+
+    private void forEachChunk(List<Long> deviceIds, Consumer<List<Long>> action) {
+        for (int from = 0; from < deviceIds.size(); from += batchSize) {
+            action.accept(deviceIds.subList(from, Math.min(deviceIds.size(), from + batchSize)));
+        }
+    }
+
+    private static String placeholders(List<Long> chunk) {
+        return String.join(",", Collections.nCopies(chunk.size(), "?"));
+    }
+
+    private static Timestamp toTimestamp(long millis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+    }
+
+    // the locked row without its timestamps; oldest is null when the row has none encoded
+    private record Stored(long highWaterMark, Long oldest, int encodedLength) {
+    }
+
+    private record Row(long deviceId, long highWaterMark, byte[] recentTimestamps) {
+    }
+}
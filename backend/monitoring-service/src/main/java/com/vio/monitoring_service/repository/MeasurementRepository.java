@@ -1,6 +1,7 @@
 package com.vio.monitoring_service.repository;
 
 import com.vio.monitoring_service.model.Measurement;
+import com.vio.monitoring_service.model.MeasurementId;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,10 +10,14 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
-public interface MeasurementRepository extends JpaRepository<Measurement, Long> {
-    Optional<Measurement> findByDeviceIdAndDateAndHour(Long deviceId, LocalDate date, Integer hour);
+public interface MeasurementRepository extends JpaRepository<Measurement, MeasurementId>, MeasurementRepositoryCustom {
     List<Measurement> findByDeviceIdAndDateOrderByHourAsc(Long deviceId, LocalDate date);
 
     @Query("SELECT m FROM Measurement m WHERE m.deviceId = :deviceId AND m.date BETWEEN :startDate AND :endDate ORDER BY m.date, m.hour")
     List<Measurement> findByDeviceIdAndDateRange(@Param("deviceId") Long deviceId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    Optional<Measurement> findFirstByDeviceIdOrderByDateDescHourDesc(Long deviceId);
+
+    @Query("SELECT MIN(m.date) FROM Measurement m")
+    Optional<LocalDate> findEarliestDate();
 }
@@ -0,0 +1,28 @@
+package com.vio.monitoring_service.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface MeasurementRepositoryCustom {
+    // adds every delta to its (deviceId, date, hour) row, creating the row when missing, in JDBC batches
+    void upsertAll(Collection<HourlyDelta> deltas);
+
+    // reads (deviceId, hour, consumption, count) of the given devices on one day without building entities
+    void forEachHour(Collection<Long> deviceIds, LocalDate date, HourlyRowConsumer consumer);
+
+    // reads the current totals of the given (deviceId, date, hour) rows in one query
+    void forEachHourlyTotal(Collection<HourlyDelta> keys, HourlyTotalConsumer consumer);
+
+    record HourlyDelta(Long deviceId, LocalDate date, int hour, double consumption, int measurementCount) {
+    }
+
+    @FunctionalInterface
+    interface HourlyRowConsumer {
+        void accept(long deviceId, int hour, double consumption, int measurementCount);
+    }
+
+    @FunctionalInterface
+    interface HourlyTotalConsumer {
+        void accept(long deviceId, LocalDate date, int hour, double consumption, int measurementCount);
+    }
+}
@@ -0,0 +1,77 @@
+package com.vio.monitoring_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+
+@RequiredArgsConstructor
+public class MeasurementRepositoryImpl implements MeasurementRepositoryCustom {
+    // VALUES() keeps the statement rewritable into a multi-row insert by rewriteBatchedStatements
+    private static final String UPSERT_SQL = "INSERT INTO measurements (device_id, date, hour, hourly_consumption, measurement_count) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE hourly_consumption = hourly_consumption + VALUES(hourly_consumption), measurement_count = measurement_count + VALUES(measurement_count)";
+
+    private static final String DAY_SQL = "SELECT device_id, hour, hourly_consumption, measurement_count FROM measurements WHERE date = ? AND device_id IN (%s)";
+
+    private static final String TOTALS_SQL = "SELECT device_id, date, hour, hourly_consumption, measurement_count FROM measurements WHERE (device_id, date, hour) IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Override
+    public void upsertAll(Collection<HourlyDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, batchSize, (ps, delta) -> {
+            ps.setLong(1, delta.deviceId());
+            ps.setDate(2, Date.valueOf(delta.date()));
+            ps.setInt(3, delta.hour());
+            ps.setDouble(4, delta.consumption());
+            ps.setInt(5, delta.measurementCount());
+        });
+    }
+
+    @Override
+    public void forEachHour(Collection<Long> deviceIds, LocalDate date, HourlyRowConsumer consumer) {
+        if (deviceIds.isEmpty()) {
+            return;
+        }
+
+        Object[] args = new Object[deviceIds.size() + 1];
+        args[0] = Date.valueOf(date);
+        int i = 1;
+        for (Long deviceId : deviceIds) {
+            args[i++] = deviceId;
+        }
+
+        String sql = DAY_SQL.formatted(String.join(", ", Collections.nCopies(deviceIds.size(), "?")));
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getInt(2), rs.getDouble(3), rs.getInt(4)), args);
+    }
+
+    @Override
+    public void forEachHourlyTotal(Collection<HourlyDelta> keys, HourlyTotalConsumer consumer) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        Object[] args = new Object[keys.size() * 3];
+        int i = 0;
+        for (HourlyDelta key : keys) {
+            args[i++] = key.deviceId();
+            args[i++] = Date.valueOf(key.date());
+            args[i++] = key.hour();
+        }
+
+        String sql = TOTALS_SQL.formatted(String.join(", ", Collections.nCopies(keys.size(), "(?, ?, ?)")));
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getInt(3), rs.getDouble(4), rs.getInt(5)), args);
+    }
+}
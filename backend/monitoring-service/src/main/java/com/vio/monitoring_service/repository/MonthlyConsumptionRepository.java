@@ -0,0 +1,10 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.model.MonthlyConsumption;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface MonthlyConsumptionRepository extends JpaRepository<MonthlyConsumption, Long>, MonthlyConsumptionRepositoryCustom {
+    List<MonthlyConsumption> findByDeviceIdAndYearOrderByMonthAsc(Long deviceId, int year);
+}
@@ -0,0 +1,14 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface MonthlyConsumptionRepositoryCustom {
+    // adds the hourly deltas to their (deviceId, year, month) rows, creating rows when missing
+    void addAll(Collection<HourlyDelta> deltas);
+
+    // recomputes the rows of the months between the given days from the daily rollup, returns the affected row count
+    int rebuild(LocalDate startDate, LocalDate endDate);
+}
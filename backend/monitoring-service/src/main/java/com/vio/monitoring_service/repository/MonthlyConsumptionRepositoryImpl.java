@@ -0,0 +1,62 @@
+package com.vio.monitoring_service.repository;
+
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+@RequiredArgsConstructor
+public class MonthlyConsumptionRepositoryImpl implements MonthlyConsumptionRepositoryCustom {
+    private static final String UPSERT_SQL = "INSERT INTO monthly_consumption (device_id, year, month, consumption, measurement_count) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE consumption = consumption + VALUES(consumption), measurement_count = measurement_count + VALUES(measurement_count)";
+
+    private static final String REBUILD_SQL = "INSERT INTO monthly_consumption (device_id, year, month, consumption, measurement_count) " +
+            "SELECT device_id, YEAR(date), MONTH(date), SUM(consumption), SUM(measurement_count) FROM daily_consumption WHERE date BETWEEN ? AND ? " +
+            "GROUP BY device_id, YEAR(date), MONTH(date) " +
+            "ON DUPLICATE KEY UPDATE consumption = VALUES(consumption), measurement_count = VALUES(measurement_count)";
+
+    private static final Comparator<MonthKey> KEY_ORDER = Comparator.comparing(MonthKey::deviceId).thenComparing(MonthKey::month);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Override
+    public void addAll(Collection<HourlyDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<MonthKey, double[]> totals = new TreeMap<>(KEY_ORDER);
+        for (HourlyDelta delta : deltas) {
+            double[] total = totals.computeIfAbsent(new MonthKey(delta.deviceId(), YearMonth.from(delta.date())), key -> new double[2]);
+            total[0] += delta.consumption();
+            total[1] += delta.measurementCount();
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, totals.entrySet(), batchSize, (ps, entry) -> {
+            ps.setLong(1, entry.getKey().deviceId());
+            ps.setInt(2, entry.getKey().month().getYear());
+            ps.setInt(3, entry.getKey().month().getMonthValue());
+            ps.setDouble(4, entry.getValue()[0]);
+            ps.setInt(5, (int) entry.getValue()[1]);
+        });
+    }
+
+    @Override
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        // whole months only, a partial range would overwrite a month with part of its days
+        LocalDate firstDay = startDate.withDayOfMonth(1);
+        LocalDate lastDay = YearMonth.from(endDate).atEndOfMonth();
+        return jdbcTemplate.update(REBUILD_SQL, Date.valueOf(firstDay), Date.valueOf(lastDay));
+    }
+
+    private record MonthKey(Long deviceId, YearMonth month) {
+    }
+}
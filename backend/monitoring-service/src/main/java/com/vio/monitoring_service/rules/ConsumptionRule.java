@@ -0,0 +1,10 @@
+package com.vio.monitoring_service.rules;
+
+/**
+ * Per-device state of one rule. Every reading of the device is folded in once, in O(1), and the
+ * returned value is what gets compared against the rule's threshold. Not thread-safe, the
+ * {@link RuleEngine} guards it.
+ */
+public interface ConsumptionRule {
+    double accept(long timestampMillis, double value);
+}
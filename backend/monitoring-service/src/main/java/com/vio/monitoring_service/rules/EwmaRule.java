@@ -0,0 +1,25 @@
+package com.vio.monitoring_service.rules;
+
+/**
+ * Exponentially weighted moving average of the readings, seeded with the first one.
+ */
+class EwmaRule implements ConsumptionRule {
+    private final double alpha;
+    private boolean seeded;
+    private double average;
+
+    EwmaRule(double alpha) {
+        this.alpha = alpha;
+    }
+
+    @Override
+    public double accept(long timestampMillis, double value) {
+        if (!seeded) {
+            average = value;
+            seeded = true;
+        } else {
+            average += alpha * (value - average);
+        }
+        return average;
+    }
+}
@@ -0,0 +1,26 @@
+package com.vio.monitoring_service.rules;
+
+/**
+ * Running total of the clock hour of the newest reading. It starts from zero when the replica
+ * first sees the device, the stored hour is not read back.
+ */
+class HourlyTotalRule implements ConsumptionRule {
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private long hour = Long.MIN_VALUE;
+    private double total;
+
+    @Override
+    public double accept(long timestampMillis, double value) {
+        long readingHour = Math.floorDiv(timestampMillis, HOUR_MILLIS);
+        if (readingHour > hour) {
+            hour = readingHour;
+            total = 0;
+        }
+        // late readings of an earlier hour do not count towards the current one
+        if (readingHour == hour) {
+            total += value;
+        }
+        return total;
+    }
+}
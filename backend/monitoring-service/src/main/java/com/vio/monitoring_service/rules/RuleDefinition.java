@@ -0,0 +1,40 @@
+package com.vio.monitoring_service.rules;
+
+/**
+ * Immutable rule configuration; {@link #create()} makes the per-device state. A null threshold
+ * compares against the device's max consumption.
+ */
+public record RuleDefinition(RuleType type, int windowMinutes, double alpha, Double threshold) {
+    public static final RuleDefinition READING = new RuleDefinition(RuleType.READING, 0, 0, null);
+
+    public RuleDefinition {
+        if (type == RuleType.SLIDING_SUM && windowMinutes <= 0) {
+            throw new IllegalArgumentException("SLIDING_SUM needs a positive window, got " + windowMinutes);
+        }
+        if (type == RuleType.EWMA && (alpha <= 0 || alpha > 1)) {
+            throw new IllegalArgumentException("EWMA needs an alpha in (0, 1], got " + alpha);
+        }
+    }
+
+    public ConsumptionRule create() {
+        return type.create(this);
+    }
+
+    public String name() {
+        return switch (type) {
+            case SLIDING_SUM -> type + "(" + windowMinutes + "m)";
+            case EWMA -> type + "(" + alpha + ")";
+            default -> type.name();
+        };
+    }
+
+    // how the observed value is shown in alert messages
+    public String label() {
+        return switch (type) {
+            case READING -> "Current";
+            case HOURLY_TOTAL -> "Hourly total";
+            case SLIDING_SUM -> windowMinutes + "-minute total";
+            case EWMA -> "Average";
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package com.vio.monitoring_service.rules;
+
+import com.vio.monitoring_service.model.AlertRule;
+import com.vio.monitoring_service.repository.AlertRuleRepository;
+import com.vio.monitoring_service.util.LongObjectHashMap;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates the overconsumption rules of a device against every reading. Rule definitions come
+ * from the alert_rules table: rows with a device id replace the default rules for that device,
+ * rows without one are the defaults, and without any rows every device gets the plain
+ * READING rule against its max consumption. Definitions are loaded at startup and reloaded
+ * periodically, and the window state of every device lives in memory, so evaluating a reading
+ * never queries the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RuleEngine {
+    private final AlertRuleRepository alertRuleRepository;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    private volatile Definitions definitions = new Definitions(new LongObjectHashMap<>(), List.of(RuleDefinition.READING));
+
+    // guarded by itself
+    private final LongObjectHashMap<DeviceRules> states = new LongObjectHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.rules.refresh-interval-ms:300000}", initialDelayString = "${app.rules.refresh-interval-ms:300000}")
+    public void reload() {
+        LongObjectHashMap<List<RuleDefinition>> perDevice = new LongObjectHashMap<>();
+        List<RuleDefinition> defaults = new ArrayList<>();
+        int loaded = 0;
+
+        for (AlertRule rule : alertRuleRepository.findAll()) {
+            RuleDefinition definition = toDefinition(rule);
+            if (definition == null) {
+                continue;
+            }
+            if (rule.getDeviceId() == null) {
+                defaults.add(definition);
+            } else {
+                List<RuleDefinition> rules = perDevice.get(rule.getDeviceId());
+                if (rules == null) {
+                    rules = new ArrayList<>();
+                    perDevice.put(rule.getDeviceId(), rules);
+                }
+                rules.add(definition);
+            }
+            loaded++;
+        }
+        if (defaults.isEmpty()) {
+            defaults.add(RuleDefinition.READING);
+        }
+
+        Definitions reloaded = new Definitions(perDevice, List.copyOf(defaults));
+        definitions = reloaded;
+
+        // windows of devices whose rules did not change keep their state
+        synchronized (states) {
+            states.removeIf(deviceId -> !states.get(deviceId).definitions().equals(reloaded.of(deviceId)));
+        }
+        log.info("[Replica {}] Loaded {} alert rules ({} devices with rules of their own, {} default rules)", replicaId, loaded, perDevice.size(), reloaded.defaults().size());
+    }
+
+    // null when no rule of the device has a threshold
+    public RuleEvaluation evaluate(long deviceId, LocalDateTime timestamp, double value, Double maxConsumption) {
+        long timestampMillis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        synchronized (states) {
+            DeviceRules device = states.get(deviceId);
+            if (device == null) {
+                device = DeviceRules.of(definitions.of(deviceId));
+                states.put(deviceId, device);
+            }
+
+            RuleEvaluation worst = null;
+            double worstRatio = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < device.rules().length; i++) {
+                RuleDefinition definition = device.definitions().get(i);
+                // every rule sees every reading, also when it cannot be compared
+                double observed = device.rules()[i].accept(timestampMillis, value);
+
+                Double threshold = definition.threshold() != null ? definition.threshold() : maxConsumption;
+                if (threshold == null || threshold <= 0) {
+                    continue;
+                }
+                double ratio = observed / threshold;
+                if (ratio > worstRatio) {
+                    worstRatio = ratio;
+                    worst = new RuleEvaluation(definition.name(), definition.label(), observed, threshold);
+                }
+            }
+            return worst;
+        }
+    }
+
+    public void forget(long deviceId) {
+        synchronized (states) {
+            states.remove(deviceId);
+        }
+    }
+
+    private RuleDefinition toDefinition(AlertRule rule) {
+        try {
+            return new RuleDefinition(
+                    RuleType.valueOf(rule.getRuleType()),
+                    rule.getWindowMinutes() != null ? rule.getWindowMinutes() : 0,
+                    rule.getAlpha() != null ? rule.getAlpha() : 0,
+                    rule.getThreshold());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("[Replica {}] Ignoring invalid alert rule {}: {}", replicaId, rule.getAlertRuleId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private record Definitions(LongObjectHashMap<List<RuleDefinition>> perDevice, List<RuleDefinition> defaults) {
+        List<RuleDefinition> of(long deviceId) {
+            List<RuleDefinition> rules = perDevice.get(deviceId);
+            return rules != null ? rules : defaults;
+        }
+    }
+
+    private record DeviceRules(List<RuleDefinition> definitions, ConsumptionRule[] rules) {
+        static DeviceRules of(List<RuleDefinition> definitions) {
+            ConsumptionRule[] rules = new ConsumptionRule[definitions.size()];
+            for (int i = 0; i < rules.length; i++) {
+                rules[i] = definitions.get(i).create();
+            }
+            return new DeviceRules(definitions, rules);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.vio.monitoring_service.rules;
+
+// the rule of a device that came closest to (or furthest over) its threshold for one reading
+public record RuleEvaluation(String rule, String label, double observed, double threshold) {
+    public boolean isExceeded() {
+        return observed > threshold;
+    }
+
+    public boolean isBelow(double ratio) {
+        return observed <= threshold * ratio;
+    }
+}
@@ -0,0 +1,30 @@
+package com.vio.monitoring_service.rules;
+
+public enum RuleType {
+    READING {
+        @Override
+        ConsumptionRule create(RuleDefinition definition) {
+            return (timestampMillis, value) -> value;
+        }
+    },
+    HOURLY_TOTAL {
+        @Override
+        ConsumptionRule create(RuleDefinition definition) {
+            return new HourlyTotalRule();
+        }
+    },
+    SLIDING_SUM {
+        @Override
+        ConsumptionRule create(RuleDefinition definition) {
+            return new SlidingSumRule(definition.windowMinutes());
+        }
+    },
+    EWMA {
+        @Override
+        ConsumptionRule create(RuleDefinition definition) {
+            return new EwmaRule(definition.alpha());
+        }
+    };
+
+    abstract ConsumptionRule create(RuleDefinition definition);
+}
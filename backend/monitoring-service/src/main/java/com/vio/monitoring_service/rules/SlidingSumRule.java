@@ -0,0 +1,46 @@
+package com.vio.monitoring_service.rules;
+
+/**
+ * Sum of the readings in the last N minutes before the newest reading, kept in a ring of at most
+ * 60 buckets. Buckets that slide out of the window are subtracted when the window advances.
+ */
+class SlidingSumRule implements ConsumptionRule {
+    private static final int MAX_BUCKETS = 60;
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final double[] buckets;
+    private final long bucketMillis;
+    private long newestBucket = Long.MIN_VALUE;
+    private double sum;
+
+    SlidingSumRule(int windowMinutes) {
+        int count = Math.min(windowMinutes, MAX_BUCKETS);
+        this.buckets = new double[count];
+        this.bucketMillis = (windowMinutes * MINUTE_MILLIS + count - 1) / count;
+    }
+
+    @Override
+    public double accept(long timestampMillis, double value) {
+        long bucket = Math.floorDiv(timestampMillis, bucketMillis);
+        if (bucket > newestBucket) {
+            // clears at most one full ring, however long the device was silent
+            long from = newestBucket == Long.MIN_VALUE ? bucket : Math.max(newestBucket + 1, bucket - buckets.length + 1);
+            for (long expired = from; expired <= bucket; expired++) {
+                int slot = (int) Math.floorMod(expired, (long) buckets.length);
+                sum -= buckets[slot];
+                buckets[slot] = 0;
+            }
+            newestBucket = bucket;
+            if (sum < 0) {
+                // rounding left over from subtracting
+                sum = 0;
+            }
+        }
+
+        if (bucket > newestBucket - buckets.length) {
+            buckets[(int) Math.floorMod(bucket, (long) buckets.length)] += value;
+            sum += value;
+        }
+        return sum;
+    }
+}
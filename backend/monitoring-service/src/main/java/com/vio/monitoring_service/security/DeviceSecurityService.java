@@ -1,7 +1,6 @@
 package com.vio.monitoring_service.security;
 
-import com.vio.monitoring_service.model.MonitoredDevice;
-import com.vio.monitoring_service.repository.MonitoredDeviceRepository;
+import com.vio.monitoring_service.service.DeviceRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,19 +9,19 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 @Slf4j
 public class DeviceSecurityService {
-    private final MonitoredDeviceRepository monitoredDeviceRepository;
+    private final DeviceRegistry deviceRegistry;
 
     public boolean isDeviceOwnedByUser(Long deviceId, String userId) {
         try {
             Long userIdLong = Long.parseLong(userId);
-            MonitoredDevice device = monitoredDeviceRepository.findById(deviceId).orElse(null);
+            DeviceRegistry.DeviceInfo device = deviceRegistry.find(deviceId);
 
             if (device == null) {
                 log.warn("Device not found in monitoring service: {}", deviceId);
                 return false;
             }
 
-            boolean isOwner = device.getUserId() != null && device.getUserId().equals(userIdLong);
+            boolean isOwner = device.userId() != null && device.userId().equals(userIdLong);
             log.debug("Device {} ownership check for user {}: {}", deviceId, userId, isOwner);
             return isOwner;
         } catch (NumberFormatException e) {
@@ -30,4 +29,13 @@ public class DeviceSecurityService {
             return false;
         }
     }
+
+    public boolean isSameUser(Long userId, String principalUserId) {
+        try {
+            return userId != null && userId.equals(Long.parseLong(principalUserId));
+        } catch (NumberFormatException e) {
+            log.error("Invalid user ID format: {}", principalUserId);
+            return false;
+        }
+    }
 }
\ No newline at end of file
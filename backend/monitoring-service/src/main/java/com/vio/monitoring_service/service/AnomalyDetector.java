@@ -0,0 +1,193 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.event.AnomalyEvent;
+import com.vio.monitoring_service.producer.AlertPublisher;
+import com.vio.monitoring_service.util.HourOfDayBaseline;
+import com.vio.monitoring_service.util.LongObjectHashMap;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flags readings that do not fit a device's own history: a sudden jump from the previous
+ * reading, a meter repeating the same value (flatline) and a reading far from the device's
+ * baseline for that hour of day. Every device has a fixed-size state (an {@link HourOfDayBaseline}
+ * and a few primitives), updated in constant time per reading, so detection runs inline on the
+ * ingest path. Baselines are replica-local and rebuilt from the readings after a restart; a slot
+ * is only scored once it holds min-samples readings. Each anomaly type is reported at most once
+ * per cooldown per device, measured in reading time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnomalyDetector {
+    private static final AnomalyEvent.Type[] TYPES = AnomalyEvent.Type.values();
+
+    private final AlertPublisher alertPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.anomaly.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.anomaly.min-samples:12}")
+    private int minSamples;
+
+    @Value("${app.anomaly.max-samples:500}")
+    private int maxSamples;
+
+    // absorbs slots whose readings barely vary, so tiny changes do not score as many deviations
+    @Value("${app.anomaly.min-stddev-kwh:0.01}")
+    private double minStddev;
+
+    @Value("${app.anomaly.deviation-sigma:4.0}")
+    private double deviationSigma;
+
+    @Value("${app.anomaly.jump-sigma:5.0}")
+    private double jumpSigma;
+
+    // a jump is only measured against a reading at most this much older
+    @Value("${app.anomaly.jump-max-gap-ms:1800000}")
+    private long jumpMaxGapMs;
+
+    @Value("${app.anomaly.flatline-readings:12}")
+    private int flatlineReadings;
+
+    @Value("${app.anomaly.cooldown-ms:3600000}")
+    private long cooldownMs;
+
+    // guarded by itself
+    private final LongObjectHashMap<DeviceState> devices = new LongObjectHashMap<>();
+    private final LongAdder[] detected = new LongAdder[TYPES.length];
+
+    @PostConstruct
+    public void init() {
+        for (AnomalyEvent.Type type : TYPES) {
+            detected[type.ordinal()] = new LongAdder();
+            FunctionCounter.builder("monitoring.anomalies.detected", detected[type.ordinal()], LongAdder::sum)
+                    .tag("type", type.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("monitoring.anomalies.tracked.devices", this, AnomalyDetector::trackedDevices)
+                .description("Devices with an anomaly baseline on this replica")
+                .register(meterRegistry);
+    }
+
+    public void observe(long deviceId, Long userId, LocalDateTime timestamp, double value) {
+        if (!enabled) {
+            return;
+        }
+
+        long millis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        int hour = timestamp.getHour();
+        List<AnomalyEvent> anomalies = new ArrayList<>(1);
+
+        synchronized (devices) {
+            DeviceState state = devices.get(deviceId);
+            if (state == null) {
+                state = new DeviceState(new HourOfDayBaseline(maxSamples));
+                devices.put(deviceId, state);
+            }
+
+            HourOfDayBaseline baseline = state.baseline;
+            boolean scored = baseline.count(hour) >= minSamples;
+            double stddev = Math.max(baseline.stddev(hour), minStddev);
+
+            // out-of-order readings only feed the baseline, jumps and runs follow reading order
+            if (millis > state.lastMillis) {
+                boolean hasPrevious = state.lastMillis != Long.MIN_VALUE;
+                double step = value - state.lastValue;
+
+                if (scored && hasPrevious && millis - state.lastMillis <= jumpMaxGapMs && Math.abs(step) > jumpSigma * stddev) {
+                    report(anomalies, state, AnomalyEvent.Type.SUDDEN_JUMP, deviceId, userId, timestamp, millis, value, state.lastValue, step / stddev);
+                }
+
+                state.repeats = hasPrevious && step == 0 ? state.repeats + 1 : 0;
+                // reported once when the run reaches the limit, a stuck meter does not alert every reading
+                if (state.repeats + 1 == flatlineReadings) {
+                    report(anomalies, state, AnomalyEvent.Type.FLATLINE, deviceId, userId, timestamp, millis, value, value, null);
+                }
+
+                state.lastMillis = millis;
+                state.lastValue = value;
+            }
+
+            double zScore = (value - baseline.mean(hour)) / stddev;
+            if (scored && Math.abs(zScore) > deviationSigma) {
+                report(anomalies, state, AnomalyEvent.Type.BASELINE_DEVIATION, deviceId, userId, timestamp, millis, value, baseline.mean(hour), zScore);
+            }
+
+            // scored before adding, an outlier must not soften its own score
+            baseline.add(hour, value);
+        }
+
+        for (AnomalyEvent anomaly : anomalies) {
+            log.info("[Replica {}] {} anomaly for device {} at {}: value {}, expected {}", replicaId, anomaly.getAnomalyType(), deviceId, timestamp, value, anomaly.getExpected());
+            if (alertPublisher.publishAnomaly(anomaly)) {
+                detected[anomaly.getAnomalyType().ordinal()].increment();
+            } else {
+                log.warn("[Replica {}] Alert queue is full, {} anomaly for device {} was not sent", replicaId, anomaly.getAnomalyType(), deviceId);
+            }
+        }
+    }
+
+    public void forget(long deviceId) {
+        synchronized (devices) {
+            devices.remove(deviceId);
+        }
+    }
+
+    private void report(List<AnomalyEvent> anomalies, DeviceState state, AnomalyEvent.Type type, long deviceId, Long userId,
+                        LocalDateTime timestamp, long millis, double value, double expected, Double deviation) {
+        int index = type.ordinal();
+        if (state.lastReportedAt[index] != Long.MIN_VALUE && millis - state.lastReportedAt[index] < cooldownMs) {
+            return;
+        }
+        state.lastReportedAt[index] = millis;
+
+        anomalies.add(AnomalyEvent.builder()
+                .deviceId(deviceId)
+                .userId(userId)
+                .anomalyType(type)
+                .value(value)
+                .expected(expected)
+                .deviation(deviation)
+                .readingTimestamp(timestamp)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private int trackedDevices() {
+        synchronized (devices) {
+            return devices.size();
+        }
+    }
+
+    private static final class DeviceState {
+        private final HourOfDayBaseline baseline;
+        private final long[] lastReportedAt = new long[TYPES.length];
+        private long lastMillis = Long.MIN_VALUE;
+        private double lastValue;
+        // readings in a row equal to the one before them
+        private int repeats;
+
+        private DeviceState(HourOfDayBaseline baseline) {
+            this.baseline = baseline;
+            Arrays.fill(lastReportedAt, Long.MIN_VALUE);
+        }
+    }
+}
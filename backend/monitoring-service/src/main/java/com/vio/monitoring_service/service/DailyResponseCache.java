@@ -0,0 +1,121 @@
+package com.vio.monitoring_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.vio.monitoring_service.dto.DailyConsumptionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Replica-local cache of serialized daily consumption responses with their ETag. Recent days
+ * (today and yesterday, which may still receive readings) expire after a short TTL, older days after
+ * a long one. Entries are dropped as soon as this replica flushes readings for their device and day,
+ * and when another replica announces a flush of that day on the live consumption exchange.
+ * The ETag and Last-Modified of every key outlive its body: a response recomputed after an
+ * expiry or invalidation keeps its previous Last-Modified when its ETag did not change, so the
+ * date only moves when the data does.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailyResponseCache {
+    // an entry is about 100 bytes, far below the bodies they describe
+    private static final long MAX_VALIDATORS = 100_000;
+    private static final Duration VALIDATOR_IDLE_TIMEOUT = Duration.ofDays(1);
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.response-cache.max-size-mb:64}")
+    private long maxSizeMb;
+
+    @Value("${app.response-cache.recent-ttl-seconds:15}")
+    private long recentTtlSeconds;
+
+    @Value("${app.response-cache.closed-ttl-minutes:60}")
+    private long closedTtlMinutes;
+
+    private Cache<Key, CachedResponse> cache;
+    // not invalidated with the bodies, only bounded in size and idle time
+    private Cache<Key, Validator> validators;
+
+    @PostConstruct
+    public void init() {
+        long recentTtl = Duration.ofSeconds(recentTtlSeconds).toNanos();
+        long closedTtl = Duration.ofMinutes(closedTtlMinutes).toNanos();
+
+        // Caffeine admits entries with W-TinyLFU, so one-off lookups do not evict the hot days
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((Key key, CachedResponse value) -> value.body().length)
+                .expireAfter(new Expiry<Key, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(Key key, CachedResponse value, long currentTime) {
+                        return key.date().isBefore(LocalDate.now().minusDays(1)) ? closedTtl : recentTtl;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, CachedResponse value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, CachedResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        validators = Caffeine.newBuilder()
+                .maximumSize(MAX_VALIDATORS)
+                .expireAfterAccess(VALIDATOR_IDLE_TIMEOUT)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "monitoring.daily.responses");
+    }
+
+    public CachedResponse get(Long deviceId, LocalDate date, Supplier<DailyConsumptionResponse> loader) {
+        return cache.get(new Key(deviceId, date), key -> serialize(key, loader.get()));
+    }
+
+    public void invalidate(Long deviceId, LocalDate date) {
+        cache.invalidate(new Key(deviceId, date));
+    }
+
+    private CachedResponse serialize(Key key, DailyConsumptionResponse response) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            Validator validator = validators.asMap().compute(key, (k, previous) ->
+                    previous != null && previous.etag().equals(etag) ? previous : new Validator(etag, Instant.now()));
+            return new CachedResponse(body, etag, validator.lastModified());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Key(Long deviceId, LocalDate date) {
+    }
+
+    private record Validator(String etag, Instant lastModified) {
+    }
+
+    public record CachedResponse(byte[] body, String etag, Instant lastModified) {
+    }
+}
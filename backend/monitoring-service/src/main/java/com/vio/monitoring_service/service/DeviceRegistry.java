@@ -0,0 +1,224 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.model.MonitoredDevice;
+import com.vio.monitoring_service.repository.MonitoredDeviceRepository;
+import com.vio.monitoring_service.util.LongObjectHashMap;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Replica-local copy of the monitored devices table. Loaded at startup, kept current by
+ * device sync events and reloaded periodically as a safety net for missed events. Sync events
+ * applied while a reload reads the table are replayed onto the loaded copy before it is swapped
+ * in, so a reload never undoes them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeviceRegistry {
+    private final MonitoredDeviceRepository monitoredDeviceRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final DeviceInfo REMOVED = new DeviceInfo(null, null);
+
+    // guarded by lock
+    private LongObjectHashMap<DeviceInfo> devices = new LongObjectHashMap<>();
+    // userId -> ids of the devices assigned to that user, kept in step with devices
+    private LongObjectHashMap<TreeSet<Long>> devicesByUser = new LongObjectHashMap<>();
+    // sync events applied since the running reload started reading, REMOVED for removals; null when no reload runs
+    private LongObjectHashMap<DeviceInfo> syncedDuringReload;
+
+    @PostConstruct
+    public void init() {
+        reload();
+
+        Gauge.builder("monitoring.device.registry.size", this, DeviceRegistry::size)
+                .description("Devices held in the replica-local registry")
+                .register(meterRegistry);
+        FunctionCounter.builder("monitoring.device.registry.lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("monitoring.device.registry.lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("monitoring.device.registry.hit.ratio", this, DeviceRegistry::hitRatio)
+                .description("Share of registry lookups that found the device")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.device-registry.refresh-interval-ms:600000}", initialDelayString = "${app.device-registry.refresh-interval-ms:600000}")
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            syncedDuringReload = new LongObjectHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LongObjectHashMap<DeviceInfo> loaded;
+        try {
+            List<MonitoredDevice> all = monitoredDeviceRepository.findAll();
+            loaded = new LongObjectHashMap<>(all.size());
+            for (MonitoredDevice device : all) {
+                loaded.put(device.getDeviceId(), new DeviceInfo(device.getUserId(), device.getMaxConsumption()));
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                syncedDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // the events may or may not be in what was read, they are newer either way
+            syncedDuringReload.forEach((deviceId, info) -> {
+                if (info == REMOVED) {
+                    loaded.remove(deviceId);
+                } else {
+                    loaded.put(deviceId, info);
+                }
+            });
+            syncedDuringReload = null;
+            devices = loaded;
+            devicesByUser = indexByUser(loaded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("[Replica {}] Loaded {} monitored devices into the device registry", replicaId, loaded.size());
+    }
+
+    public DeviceInfo find(long deviceId) {
+        DeviceInfo info;
+        lock.readLock().lock();
+        try {
+            info = devices.get(deviceId);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (info != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return info;
+    }
+
+    // sorted by device id
+    public List<Long> findDevicesOfUser(long userId) {
+        lock.readLock().lock();
+        try {
+            TreeSet<Long> owned = devicesByUser.get(userId);
+            return owned == null ? List.of() : new ArrayList<>(owned);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long deviceId) {
+        return find(deviceId) != null;
+    }
+
+    public void put(Long deviceId, Long userId, Double maxConsumption) {
+        DeviceInfo info = new DeviceInfo(userId, maxConsumption);
+        lock.writeLock().lock();
+        try {
+            unindex(deviceId, devices.put(deviceId, info));
+            addOwned(devicesByUser, deviceId, info);
+            if (syncedDuringReload != null) {
+                syncedDuringReload.put(deviceId, info);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long deviceId) {
+        lock.writeLock().lock();
+        try {
+            unindex(deviceId, devices.remove(deviceId));
+            if (syncedDuringReload != null) {
+                syncedDuringReload.put(deviceId, REMOVED);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return devices.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // callers hold the write lock
+    private void unindex(long deviceId, DeviceInfo previous) {
+        if (previous == null || previous.userId() == null) {
+            return;
+        }
+
+        TreeSet<Long> owned = devicesByUser.get(previous.userId());
+        if (owned != null) {
+            owned.remove(deviceId);
+            if (owned.isEmpty()) {
+                devicesByUser.remove(previous.userId());
+            }
+        }
+    }
+
+    private static LongObjectHashMap<TreeSet<Long>> indexByUser(LongObjectHashMap<DeviceInfo> devices) {
+        LongObjectHashMap<TreeSet<Long>> byUser = new LongObjectHashMap<>();
+        devices.forEach((deviceId, info) -> addOwned(byUser, deviceId, info));
+        return byUser;
+    }
+
+    private static void addOwned(LongObjectHashMap<TreeSet<Long>> byUser, long deviceId, DeviceInfo info) {
+        if (info.userId() == null) {
+            return;
+        }
+
+        TreeSet<Long> owned = byUser.get(info.userId());
+        if (owned == null) {
+            owned = new TreeSet<>();
+            byUser.put(info.userId(), owned);
+        }
+        owned.add(deviceId);
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+
+    public record DeviceInfo(Long userId, Double maxConsumption) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.event.LiveConsumptionUpdate;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replica-local SSE subscribers of live hourly totals, by device. Every subscriber has a single
+ * pending slot: a newer total replaces one that was not sent yet, so a slow client only ever
+ * receives the latest value and never builds a backlog. A subscriber has at most one send task
+ * queued or running, heartbeats included, and a client whose write blocks past the send timeout
+ * is dropped by the heartbeat sweep, so slow clients cannot hold the sender threads.
+ */
+@Service
+@Slf4j
+public class LiveConsumptionRegistry {
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+
+    @Value("${app.live.emitter-timeout-ms:1800000}")
+    private long emitterTimeout;
+
+    @Value("${app.live.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    public LiveConsumptionRegistry(@Value("${app.live.sender-threads:4}") int senderThreads) {
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-consumption-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(Long deviceId, LiveConsumptionUpdate initial) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        Subscriber subscriber = new Subscriber(deviceId, emitter);
+
+        subscribers.computeIfAbsent(deviceId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        if (initial != null) {
+            subscriber.offer(initial);
+        }
+        log.debug("Live consumption subscriber added for device {}", deviceId);
+        return emitter;
+    }
+
+    public void publishLocal(List<LiveConsumptionUpdate> updates) {
+        for (LiveConsumptionUpdate update : updates) {
+            Set<Subscriber> deviceSubscribers = subscribers.get(update.getDeviceId());
+            if (deviceSubscribers != null) {
+                deviceSubscribers.forEach(subscriber -> subscriber.offer(update));
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        int count = 0;
+        for (Set<Subscriber> deviceSubscribers : subscribers.values()) {
+            count += deviceSubscribers.size();
+        }
+        return count;
+    }
+
+    // proxies drop idle connections, and a failed write is how a gone client is noticed
+    @Scheduled(fixedDelayString = "${app.live.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long stuckSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        subscribers.values().forEach(deviceSubscribers -> deviceSubscribers.forEach(subscriber -> subscriber.heartbeat(stuckSince)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.values().forEach(deviceSubscribers -> deviceSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.deviceId, (id, deviceSubscribers) -> {
+            deviceSubscribers.remove(subscriber);
+            return deviceSubscribers.isEmpty() ? null : deviceSubscribers;
+        });
+    }
+
+    private final class Subscriber {
+        private final Long deviceId;
+        private final SseEmitter emitter;
+        private final AtomicReference<LiveConsumptionUpdate> pending = new AtomicReference<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // System.nanoTime() when the running write started, 0 between writes
+        private volatile long writeStartedAt;
+
+        Subscriber(Long deviceId, SseEmitter emitter) {
+            this.deviceId = deviceId;
+            this.emitter = emitter;
+        }
+
+        void offer(LiveConsumptionUpdate update) {
+            pending.set(update);
+            scheduleDrain();
+        }
+
+        void heartbeat(long stuckSince) {
+            long startedAt = writeStartedAt;
+            if (startedAt != 0 && startedAt - stuckSince < 0) {
+                // completing the emitter closes the connection, which fails the blocked write and frees its thread
+                log.debug("Live consumption subscriber of device {} did not accept a write within {} ms, dropping it", deviceId, sendTimeoutMs);
+                unsubscribe(this);
+                emitter.completeWithError(new IOException("Live consumption write timed out"));
+                return;
+            }
+            heartbeatDue.set(true);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                LiveConsumptionUpdate update;
+                while ((update = pending.getAndSet(null)) != null) {
+                    if (!send(SseEmitter.event().name("consumption").data(update, MediaType.APPLICATION_JSON))) {
+                        return;
+                    }
+                    // a total was just written, the connection does not need a keep-alive
+                    heartbeatDue.set(false);
+                }
+                if (heartbeatDue.getAndSet(false) && !send(SseEmitter.event().comment("keep-alive"))) {
+                    return;
+                }
+            } finally {
+                sending.set(false);
+            }
+            // an update or heartbeat may have arrived after the last poll and before the flag was cleared
+            if (pending.get() != null || heartbeatDue.get()) {
+                scheduleDrain();
+            }
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            writeStartedAt = System.nanoTime();
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Live consumption subscriber of device {} is gone: {}", deviceId, e.getMessage());
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return false;
+            } finally {
+                writeStartedAt = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.vio.monitoring_service.service;
+
+import com.rabbitmq.client.Channel;
+import com.vio.monitoring_service.producer.LiveConsumptionPublisher;
+import com.vio.monitoring_service.repository.DailyConsumptionRepository;
+import com.vio.monitoring_service.repository.IngestWatermarkRepository;
+import com.vio.monitoring_service.repository.MeasurementRepository;
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+import com.vio.monitoring_service.repository.MonthlyConsumptionRepository;
+import com.vio.monitoring_service.util.LongObjectHashMap;
+import com.vio.monitoring_service.util.TimestampWindow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for hourly consumption, organised as event-time hour windows.
+ * Every device has a watermark, its newest reading timestamp minus the allowed lateness. Readings
+ * are held in the open (deviceId, date, hour) window until the watermark passes the end of the
+ * hour, and the closed window is then upserted into the measurements table and its daily and
+ * monthly rollups with a single write. A reading for a window that was already written is late
+ * and goes to the correction path, which adds it to the stored hour on the next flush.
+ * Open windows are also written early, as partial totals, once they are older than the
+ * configured hold time or hold back too many unacknowledged messages.
+ * Message acknowledgements handed over with {@link #deferAck} are sent only up to the oldest
+ * reading still held, after the flush that wrote everything before it has committed. Messages
+ * rejected with {@link #reject} are nacked right away and skipped by later multiple acks. The same
+ * transaction stores the flushed reading timestamps with the per-device ingest high-water marks
+ * used by {@link ReadingDeduplicator}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MeasurementAggregator {
+    private static final Comparator<HourlyDelta> DELTA_ORDER = Comparator
+            .comparing(HourlyDelta::deviceId)
+            .thenComparing(HourlyDelta::date)
+            .thenComparingInt(HourlyDelta::hour);
+
+    private final MeasurementRepository measurementRepository;
+    private final DailyConsumptionRepository dailyConsumptionRepository;
+    private final MonthlyConsumptionRepository monthlyConsumptionRepository;
+    private final IngestWatermarkRepository ingestWatermarkRepository;
+    private final ReadingDeduplicator readingDeduplicator;
+    private final TransactionTemplate transactionTemplate;
+    private final DailyResponseCache dailyResponseCache;
+    private final LiveConsumptionPublisher liveConsumptionPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.aggregation.max-pending-readings:1000}")
+    private int maxPendingReadings;
+
+    @Value("${app.windowing.allowed-lateness-ms:120000}")
+    private long allowedLatenessMs;
+
+    @Value("${app.windowing.max-open-ms:10000}")
+    private long maxOpenMs;
+
+    @Value("${app.windowing.max-unacked-messages:800}")
+    private long maxUnackedMessages;
+
+    @Value("${app.windowing.watermark-idle-ms:3600000}")
+    private long watermarkIdleMs;
+
+    private final Object bufferLock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongAdder lateReadings = new LongAdder();
+
+    // all guarded by bufferLock
+    private Map<BucketKey, HourlyBucket> openWindows = new HashMap<>();
+    private Map<BucketKey, HourlyBucket> ready = new HashMap<>();
+    // devices without open windows lose their watermark once idle, a later reading starts a new one
+    private final LongObjectHashMap<Watermark> watermarks = new LongObjectHashMap<>();
+    private long nextWatermarkPrune;
+    private final Map<Channel, Long> pendingAcks = new HashMap<>();
+    private final Map<Channel, Long> ackedTags = new HashMap<>();
+    // nacked ahead of the ack, a multiple ack must name a delivery tag that is still outstanding
+    private final Map<Channel, NavigableSet<Long>> rejectedTags = new HashMap<>();
+    private int pendingReadings;
+
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("monitoring.ingest.late.readings", lateReadings, LongAdder::sum)
+                .description("Readings that arrived after their hour window was written and were applied as corrections")
+                .register(meterRegistry);
+        Gauge.builder("monitoring.aggregation.open.windows", this, MeasurementAggregator::openWindowCount)
+                .description("Hour windows held in memory until their device watermark passes them")
+                .register(meterRegistry);
+        Gauge.builder("monitoring.aggregation.watermarks", this, MeasurementAggregator::watermarkCount)
+                .description("Device watermarks held in memory, idle devices without open windows are dropped")
+                .register(meterRegistry);
+    }
+
+    public void record(Long deviceId, LocalDateTime timestamp, double value, Channel channel, long deliveryTag) {
+        boolean flushNeeded;
+
+        synchronized (bufferLock) {
+            LocalDateTime watermark = advanceWatermark(deviceId, timestamp, System.currentTimeMillis());
+            BucketKey key = new BucketKey(deviceId, timestamp.toLocalDate(), timestamp.getHour());
+            HourlyBucket open = openWindows.get(key);
+
+            if (open == null && !key.end().isAfter(watermark)) {
+                // the window was closed and written already, the reading corrects the stored hour
+                ready.computeIfAbsent(key, k -> new HourlyBucket(0)).add(value, timestamp);
+                lateReadings.increment();
+                log.debug("[Replica {}] Late reading of device {} at {} behind watermark {}, applying as correction", replicaId, deviceId, timestamp, watermark);
+            } else {
+                if (open == null) {
+                    open = new HourlyBucket(System.currentTimeMillis());
+                    openWindows.put(key, open);
+                }
+                open.add(value, timestamp);
+                open.holdTag(channel, deliveryTag);
+            }
+
+            pendingReadings++;
+            flushNeeded = pendingReadings >= maxPendingReadings;
+        }
+
+        if (flushNeeded) {
+            flush(false);
+        }
+    }
+
+    public void deferAck(Channel channel, long deliveryTag) {
+        synchronized (bufferLock) {
+            pendingAcks.merge(channel, deliveryTag, Math::max);
+        }
+    }
+
+    // the message is settled now, the acks deferred for the messages around it are not held back
+    public void reject(Channel channel, long deliveryTag, boolean requeue) {
+        synchronized (bufferLock) {
+            rejectedTags.computeIfAbsent(channel, c -> new TreeSet<>()).add(deliveryTag);
+        }
+        try {
+            channel.basicNack(deliveryTag, false, requeue);
+        } catch (Exception e) {
+            // a closed channel redelivers the message anyway
+            log.error("❌ [Replica {}] Failed to nack delivery tag {}: {}", replicaId, deliveryTag, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.aggregation.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("[Replica {}] Flushing aggregation buffer before shutdown", replicaId);
+        flush(true);
+    }
+
+    private void flush(boolean closeAll) {
+        Map<BucketKey, HourlyBucket> written = null;
+        flushLock.lock();
+        try {
+            Map<BucketKey, HourlyBucket> drained;
+            Map<Channel, Long> drainedAcks;
+
+            synchronized (bufferLock) {
+                drained = ready;
+                ready = new HashMap<>();
+                drainWindows(drained, closeAll || isAckBacklogged());
+                pruneWatermarks();
+                drainedAcks = ackTargets();
+                pendingReadings = 0;
+            }
+            if (drained.isEmpty() && drainedAcks.isEmpty()) {
+                return;
+            }
+
+            int drainedReadings = drained.values().stream().mapToInt(bucket -> bucket.count).sum();
+            try {
+                if (!drained.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status -> writeBuckets(drained));
+                    log.info("✅ [Replica {}] Flushed {} readings into {} hourly buckets", replicaId, drainedReadings, drained.size());
+                    drained.keySet().forEach(key -> dailyResponseCache.invalidate(key.deviceId(), key.date()));
+                }
+            } catch (Exception e) {
+                log.error("❌ [Replica {}] Failed to flush {} hourly buckets, keeping them for the next attempt: {}", replicaId, drained.size(), e.getMessage(), e);
+                restore(drained, drainedReadings);
+                return;
+            }
+
+            acknowledge(drainedAcks);
+            written = drained;
+        } finally {
+            flushLock.unlock();
+        }
+
+        if (written != null) {
+            publishFlushedHours(written);
+        }
+    }
+
+    private LocalDateTime advanceWatermark(long deviceId, LocalDateTime timestamp, long now) {
+        LocalDateTime candidate = timestamp.minus(Duration.ofMillis(allowedLatenessMs));
+        Watermark watermark = watermarks.get(deviceId);
+        if (watermark == null) {
+            watermark = new Watermark(candidate);
+            watermarks.put(deviceId, watermark);
+        } else if (candidate.isAfter(watermark.mark)) {
+            watermark.mark = candidate;
+        }
+        watermark.touchedAt = now;
+        return watermark.mark;
+    }
+
+    // a watermark is only needed while the device has open windows or may still send late readings
+    private void pruneWatermarks() {
+        long now = System.currentTimeMillis();
+        if (now < nextWatermarkPrune) {
+            return;
+        }
+        nextWatermarkPrune = now + Math.min(watermarkIdleMs, 60_000);
+
+        Set<Long> open = new HashSet<>();
+        openWindows.keySet().forEach(key -> open.add(key.deviceId()));
+        long idleBefore = now - watermarkIdleMs;
+        watermarks.removeIf(deviceId -> watermarks.get(deviceId).touchedAt < idleBefore && !open.contains(deviceId));
+        // the same sweep drops the duplicate windows of devices idle for the dedup horizon
+        readingDeduplicator.evictIdle(open);
+    }
+
+    // moves closed windows, and every window of devices holding an expired one, into drained
+    private void drainWindows(Map<BucketKey, HourlyBucket> drained, boolean all) {
+        long expiredBefore = System.currentTimeMillis() - maxOpenMs;
+        Set<Long> expiredDevices = new HashSet<>();
+        if (!all) {
+            openWindows.forEach((key, bucket) -> {
+                if (bucket.openedAt <= expiredBefore) {
+                    expiredDevices.add(key.deviceId());
+                }
+            });
+        }
+
+        Iterator<Map.Entry<BucketKey, HourlyBucket>> it = openWindows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<BucketKey, HourlyBucket> entry = it.next();
+            BucketKey key = entry.getKey();
+            // a device's open windows are written together, so its high-water mark never passes a held reading
+            if (all || expiredDevices.contains(key.deviceId()) || !key.end().isAfter(watermarks.get(key.deviceId()).mark)) {
+                merge(drained, key, entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private boolean isAckBacklogged() {
+        Map<Channel, Long> heldFrom = oldestHeldTags();
+        for (Map.Entry<Channel, Long> entry : pendingAcks.entrySet()) {
+            Long held = heldFrom.get(entry.getKey());
+            if (held != null && entry.getValue() - held >= maxUnackedMessages) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // per channel, the highest delivery tag below every reading still held in an open window
+    private Map<Channel, Long> ackTargets() {
+        Map<Channel, Long> heldFrom = oldestHeldTags();
+        Map<Channel, Long> targets = new HashMap<>();
+
+        Iterator<Map.Entry<Channel, Long>> it = pendingAcks.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Channel, Long> entry = it.next();
+            Channel channel = entry.getKey();
+            if (!channel.isOpen()) {
+                // the broker redelivers everything unacked on a closed channel
+                log.warn("[Replica {}] Channel closed before ack of delivery tag {}, messages will be redelivered", replicaId, entry.getValue());
+                ackedTags.remove(channel);
+                rejectedTags.remove(channel);
+                it.remove();
+                continue;
+            }
+
+            Long held = heldFrom.get(channel);
+            long target = held == null ? entry.getValue() : Math.min(entry.getValue(), held - 1);
+            NavigableSet<Long> rejected = rejectedTags.get(channel);
+            while (rejected != null && rejected.contains(target)) {
+                target--;
+            }
+            if (target > ackedTags.getOrDefault(channel, 0L)) {
+                targets.put(channel, target);
+            }
+        }
+        return targets;
+    }
+
+    private Map<Channel, Long> oldestHeldTags() {
+        Map<Channel, Long> oldest = new HashMap<>();
+        openWindows.values().forEach(bucket -> bucket.firstTags.forEach((channel, tag) -> oldest.merge(channel, tag, Math::min)));
+        return oldest;
+    }
+
+    private void writeBuckets(Map<BucketKey, HourlyBucket> drained) {
+        List<HourlyDelta> deltas = new ArrayList<>(drained.size());
+        Map<Long, long[]> committed = new HashMap<>();
+        drained.forEach((key, bucket) -> {
+            deltas.add(new HourlyDelta(key.deviceId(), key.date(), key.hour(), bucket.consumption, bucket.count));
+            committed.merge(key.deviceId(), bucket.timestamps(), MeasurementAggregator::concat);
+        });
+        // index order keeps row locks consistent between replicas and makes replays walk the key in order
+        deltas.sort(DELTA_ORDER);
+        measurementRepository.upsertAll(deltas);
+        // rollups move in the same transaction, so they never drift from the hourly rows on failure
+        dailyConsumptionRepository.addAll(deltas);
+        monthlyConsumptionRepository.addAll(deltas);
+        // committed together with the consumption, a rolled back flush leaves the marks where they were
+        ingestWatermarkRepository.advanceAll(committed);
+    }
+
+    // live totals and cache invalidations of the flushed hours are fanned out to all replicas by the publisher thread
+    private void publishFlushedHours(Map<BucketKey, HourlyBucket> drained) {
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<HourlyDelta> keys = new ArrayList<>(drained.size());
+        drained.keySet().forEach(key -> keys.add(new HourlyDelta(key.deviceId(), key.date(), key.hour(), 0, 0)));
+        liveConsumptionPublisher.submit(keys);
+    }
+
+    private void acknowledge(Map<Channel, Long> acks) {
+        acks.forEach((channel, deliveryTag) -> {
+            if (!channel.isOpen()) {
+                log.warn("[Replica {}] Channel closed before ack of delivery tag {}, messages will be redelivered", replicaId, deliveryTag);
+                return;
+            }
+            try {
+                channel.basicAck(deliveryTag, true);
+                synchronized (bufferLock) {
+                    ackedTags.merge(channel, deliveryTag, Math::max);
+                    NavigableSet<Long> rejected = rejectedTags.get(channel);
+                    if (rejected != null) {
+                        rejected.headSet(deliveryTag, true).clear();
+                        if (rejected.isEmpty()) {
+                            rejectedTags.remove(channel);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("❌ [Replica {}] Failed to ack delivery tag {}: {}", replicaId, deliveryTag, e.getMessage(), e);
+            }
+        });
+    }
+
+    // drained windows are written on the next attempt; their acks were not sent and are recomputed then
+    private void restore(Map<BucketKey, HourlyBucket> drained, int drainedReadings) {
+        synchronized (bufferLock) {
+            drained.forEach((key, bucket) -> merge(ready, key, bucket));
+            pendingReadings += drainedReadings;
+        }
+    }
+
+    private int openWindowCount() {
+        synchronized (bufferLock) {
+            return openWindows.size();
+        }
+    }
+
+    private int watermarkCount() {
+        synchronized (bufferLock) {
+            return watermarks.size();
+        }
+    }
+
+    private static void merge(Map<BucketKey, HourlyBucket> target, BucketKey key, HourlyBucket bucket) {
+        HourlyBucket existing = target.putIfAbsent(key, bucket);
+        if (existing != null) {
+            existing.consumption += bucket.consumption;
+            existing.timestamps = concat(existing.timestamps(), bucket.timestamps());
+            existing.count += bucket.count;
+        }
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    private static final class Watermark {
+        private LocalDateTime mark;
+        // wall-clock time of the device's last reading
+        private long touchedAt;
+
+        Watermark(LocalDateTime mark) {
+            this.mark = mark;
+        }
+    }
+
+    private record BucketKey(Long deviceId, LocalDate date, int hour) {
+        LocalDateTime end() {
+            return date.atTime(hour, 0).plusHours(1);
+        }
+    }
+
+    private static final class HourlyBucket {
+        private final long openedAt;
+        private double consumption;
+        private int count;
+        // reading timestamps in epoch millis, the first count are used
+        private long[] timestamps = new long[4];
+        // first delivery tag per channel of the readings held in this window
+        private final Map<Channel, Long> firstTags = new HashMap<>(2);
+
+        HourlyBucket(long openedAt) {
+            this.openedAt = openedAt;
+        }
+
+        void add(double value, LocalDateTime timestamp) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, Math.max(4, count << 1));
+            }
+            consumption += value;
+            timestamps[count++] = TimestampWindow.toMillis(timestamp);
+        }
+
+        long[] timestamps() {
+            return timestamps.length == count ? timestamps : Arrays.copyOf(timestamps, count);
+        }
+
+        void holdTag(Channel channel, long deliveryTag) {
+            firstTags.merge(channel, deliveryTag, Math::min);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.archive.MonthArchive;
+import com.vio.monitoring_service.archive.MonthArchiveWriter;
+import com.vio.monitoring_service.repository.ConsumptionRangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Columnar archive of hourly measurements, one memory-mapped file per month on a volume shared by
+ * all replicas. Replica 1 exports a month right before its partition is dropped by
+ * {@link MeasurementPartitionManager}; hourly range reads take archived months from the files
+ * and everything else from the measurements table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MeasurementArchive {
+    private final ConsumptionRangeRepository consumptionRangeRepository;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.directory:archive}")
+    private String directory;
+
+    // mapped files are reopened when replica 1 replaces them
+    private final Map<YearMonth, OpenArchive> archives = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // writes the month's hourly rows next to its archive, optionally summed with the rows archived earlier
+    public PendingExport prepare(YearMonth month, boolean mergeArchived) throws IOException {
+        Path target = file(month);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        MonthArchive previous = mergeArchived ? open(month) : null;
+
+        long[] rows = new long[1];
+        try (MonthArchiveWriter writer = new MonthArchiveWriter(temp, month, previous)) {
+            consumptionRangeRepository.streamAllDevicesHourly(month.atDay(1), month.atEndOfMonth(), (deviceId, date, hour, consumption, measurementCount) -> {
+                try {
+                    writer.add(deviceId, date, hour, consumption, measurementCount);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new PendingExport(month, temp, rows[0]);
+    }
+
+    // replaces the month's archive once the exported rows were removed from the database
+    public void publish(PendingExport export) throws IOException {
+        Path target = file(export.month());
+        // readers never see a half-written archive
+        Files.move(export.file(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        archives.remove(export.month());
+        log.info("✅ [Replica {}] Archived {} hourly rows of {} into {} ({} bytes)", replicaId, export.rows(), export.month(), target, Files.size(target));
+    }
+
+    // hourly rows of the device in date order, archived months read from their files
+    public void streamHourly(Long deviceId, LocalDate startDate, LocalDate endDate, ConsumptionRangeRepository.RowConsumer consumer) {
+        if (!enabled) {
+            consumptionRangeRepository.streamHourly(deviceId, startDate, endDate, consumer);
+            return;
+        }
+
+        LocalDate databaseFrom = null;
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            LocalDate from = startDate.isAfter(month.atDay(1)) ? startDate : month.atDay(1);
+            LocalDate to = endDate.isBefore(month.atEndOfMonth()) ? endDate : month.atEndOfMonth();
+
+            MonthArchive archive = openUnchecked(month);
+            if (archive == null) {
+                // consecutive months still in the database are read with one query
+                if (databaseFrom == null) {
+                    databaseFrom = from;
+                }
+                continue;
+            }
+            if (databaseFrom != null) {
+                consumptionRangeRepository.streamHourly(deviceId, databaseFrom, from.minusDays(1), consumer);
+                databaseFrom = null;
+            }
+            archive.forEachHour(deviceId, from, to, consumer::accept);
+        }
+        if (databaseFrom != null) {
+            consumptionRangeRepository.streamHourly(deviceId, databaseFrom, endDate, consumer);
+        }
+    }
+
+    private MonthArchive openUnchecked(YearMonth month) {
+        try {
+            return open(month);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MonthArchive open(YearMonth month) throws IOException {
+        Path file = file(month);
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            archives.remove(month);
+            return null;
+        }
+
+        OpenArchive open = archives.get(month);
+        if (open == null || !open.modified().equals(modified)) {
+            open = new OpenArchive(MonthArchive.open(file), modified);
+            archives.put(month, open);
+        }
+        return open.archive();
+    }
+
+    private Path file(YearMonth month) {
+        return Path.of(directory, "measurements-" + month + ".arc");
+    }
+
+    public record PendingExport(YearMonth month, Path file, long rows) {
+    }
+
+    private record OpenArchive(MonthArchive archive, FileTime modified) {
+    }
+}
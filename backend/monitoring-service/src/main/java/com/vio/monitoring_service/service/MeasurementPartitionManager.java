@@ -0,0 +1,195 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.repository.DailyConsumptionRepository;
+import com.vio.monitoring_service.repository.MeasurementRepository;
+import com.vio.monitoring_service.repository.MonthlyConsumptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Owns the monthly RANGE COLUMNS partitions on date of the measurements table, whose
+ * (device_id, date, hour) primary key is set up by {@link MeasurementSchemaInitializer} before
+ * ingest starts. Partitions are created a few months ahead, and months older than the hourly
+ * retention horizon are exported to the {@link MeasurementArchive}, recomputed into the daily and
+ * monthly rollups and then dropped as a whole partition instead of being deleted row by row.
+ * Runs on replica 1 only, like {@link RollupReconciler}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MeasurementPartitionManager {
+    private static final String FUTURE_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String PARTITIONS_SQL = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'measurements' AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeasurementRepository measurementRepository;
+    private final DailyConsumptionRepository dailyConsumptionRepository;
+    private final MonthlyConsumptionRepository monthlyConsumptionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeasurementArchive measurementArchive;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.retention.hourly-months:24}")
+    private int hourlyRetentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareTable() {
+        if (replicaId != 1 || !enabled) {
+            return;
+        }
+
+        try {
+            ensurePartitioned();
+        } catch (Exception e) {
+            log.error("❌ [Replica {}] Failed to prepare the measurements table layout: {}", replicaId, e.getMessage(), e);
+            return;
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.partitioning.maintenance-cron:0 15 1 * * *}")
+    public void maintain() {
+        if (replicaId != 1 || !enabled) {
+            return;
+        }
+
+        try {
+            if (partitions().isEmpty()) {
+                return;
+            }
+            addFuturePartitions();
+            applyRetention();
+        } catch (Exception e) {
+            log.error("❌ [Replica {}] Measurements partition maintenance failed: {}", replicaId, e.getMessage(), e);
+        }
+    }
+
+    private void ensurePartitioned() {
+        if (!partitions().isEmpty()) {
+            return;
+        }
+
+        YearMonth first = measurementRepository.findEarliestDate().map(YearMonth::from).orElse(YearMonth.now());
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+
+        StringJoiner definitions = new StringJoiner(", ", "(", ")");
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.add(definition(month));
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+
+        log.info("[Replica {}] Partitioning measurements by month from {} to {}", replicaId, first, last);
+        jdbcTemplate.execute("ALTER TABLE measurements PARTITION BY RANGE COLUMNS(date) " + definitions);
+    }
+
+    // splits the empty catch-all partition so that upcoming months get their own partition
+    private void addFuturePartitions() {
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        YearMonth next = newestMonth(partitions()).plusMonths(1);
+        if (next.isAfter(last)) {
+            return;
+        }
+
+        StringJoiner definitions = new StringJoiner(", ", "(", ")");
+        for (YearMonth month = next; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.add(definition(month));
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+
+        jdbcTemplate.execute("ALTER TABLE measurements REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO " + definitions);
+        log.info("[Replica {}] Added measurements partitions from {} to {}", replicaId, next, last);
+    }
+
+    private void applyRetention() throws IOException {
+        if (hourlyRetentionMonths <= 0) {
+            return;
+        }
+
+        YearMonth horizon = YearMonth.now().minusMonths(hourlyRetentionMonths);
+        for (String partition : partitions()) {
+            if (FUTURE_PARTITION.equals(partition)) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(partition, PARTITION_NAME);
+            if (!month.isBefore(horizon)) {
+                break;
+            }
+            dropMonth(partition, month);
+        }
+    }
+
+    private void dropMonth(String partition, YearMonth month) throws IOException {
+        List<MeasurementArchive.PendingExport> exports = new ArrayList<>();
+        if (measurementArchive.isEnabled()) {
+            // the oldest partition also holds late rows of earlier months, they are added to those archives;
+            // an archive of the month itself can only be left over from an attempt that did not drop the partition
+            YearMonth first = measurementRepository.findEarliestDate().map(YearMonth::from).filter(earliest -> earliest.isBefore(month)).orElse(month);
+            for (YearMonth archived = first; !archived.isAfter(month); archived = archived.plusMonths(1)) {
+                exports.add(measurementArchive.prepare(archived, !archived.equals(month)));
+            }
+        }
+
+        // downsample first, the DDL below commits implicitly and cannot be rolled back; rollups of
+        // earlier days only missed the late rows, which the aggregator already added to them
+        LocalDate startDate = month.atDay(1);
+        LocalDate endDate = month.atEndOfMonth();
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyConsumptionRepository.rebuild(startDate, endDate);
+            monthlyConsumptionRepository.rebuild(startDate, endDate);
+        });
+        jdbcTemplate.execute("ALTER TABLE measurements DROP PARTITION " + partition);
+
+        // published only now, so a failed drop cannot get the same rows archived twice
+        for (MeasurementArchive.PendingExport export : exports) {
+            measurementArchive.publish(export);
+        }
+        log.info("✅ [Replica {}] Folded hourly measurements of {} into the rollups and dropped partition {}", replicaId, month, partition);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class);
+    }
+
+    private static YearMonth newestMonth(List<String> partitions) {
+        YearMonth newest = null;
+        for (String partition : partitions) {
+            if (!FUTURE_PARTITION.equals(partition)) {
+                YearMonth month = YearMonth.parse(partition, PARTITION_NAME);
+                if (newest == null || month.isAfter(newest)) {
+                    newest = month;
+                }
+            }
+        }
+        return newest != null ? newest : YearMonth.now().minusMonths(1);
+    }
+
+    private static String definition(YearMonth month) {
+        return "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+}
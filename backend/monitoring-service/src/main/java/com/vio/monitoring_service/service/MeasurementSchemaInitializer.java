@@ -0,0 +1,139 @@
+package com.vio.monitoring_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes (device_id, date, hour) the primary key of the measurements table, which the
+ * {@code ON DUPLICATE KEY UPDATE} upserts rely on. Tables created before it have a surrogate
+ * measurement_id key and may already hold several rows per device-hour; those are merged into one
+ * (consumption and counts summed) before the key is added. Runs on every replica while the context
+ * starts, after Hibernate has updated the schema and before the listener containers consume
+ * anything. A named lock lets only one replica migrate at a time, and any failure aborts startup
+ * rather than letting the upserts degrade into plain inserts.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class MeasurementSchemaInitializer {
+    private static final List<String> KEY_COLUMNS = List.of("device_id", "date", "hour");
+    private static final String LEGACY_ID_COLUMN = "measurement_id";
+    private static final String LEGACY_UNIQUE_INDEX = "uk_measurements_device_date_hour";
+    private static final String LOCK_NAME = "monitoring.measurements.schema";
+
+    private static final String KEY_COLUMNS_SQL = "SELECT COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'measurements' AND CONSTRAINT_NAME = 'PRIMARY' ORDER BY ORDINAL_POSITION";
+    private static final String COLUMN_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.COLUMNS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'measurements' AND COLUMN_NAME = ?";
+    private static final String INDEX_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.STATISTICS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'measurements' AND INDEX_NAME = ?";
+
+    private static final String COLLECT_DUPLICATES_SQL = "CREATE TEMPORARY TABLE measurements_merged AS " +
+            "SELECT device_id, date, hour, SUM(hourly_consumption) AS hourly_consumption, SUM(measurement_count) AS measurement_count " +
+            "FROM measurements GROUP BY device_id, date, hour HAVING COUNT(*) > 1";
+    private static final String DELETE_DUPLICATES_SQL = "DELETE m FROM measurements m JOIN measurements_merged d " +
+            "ON m.device_id = d.device_id AND m.date = d.date AND m.hour = d.hour";
+    private static final String INSERT_MERGED_SQL = "INSERT INTO measurements (device_id, date, hour, hourly_consumption, measurement_count) " +
+            "SELECT device_id, date, hour, hourly_consumption, measurement_count FROM measurements_merged";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.schema.lock-timeout-seconds:300}")
+    private int lockTimeoutSeconds;
+
+    @PostConstruct
+    public void ensureHourlyKey() {
+        if (hasHourlyKey(jdbcTemplate)) {
+            return;
+        }
+
+        // GET_LOCK and the temporary table belong to the session, so everything runs on one connection
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            Integer locked = session.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class, LOCK_NAME, lockTimeoutSeconds);
+            if (locked == null || locked != 1) {
+                throw new IllegalStateException("Timed out waiting for another replica to migrate the measurements key");
+            }
+            try {
+                // another replica may have finished while this one waited
+                if (!hasHourlyKey(session)) {
+                    migrate(session, connection);
+                }
+            } finally {
+                session.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, LOCK_NAME);
+            }
+            return null;
+        });
+    }
+
+    private void migrate(JdbcTemplate session, Connection connection) throws SQLException {
+        List<String> keyColumns = session.queryForList(KEY_COLUMNS_SQL, String.class);
+        log.info("[Replica {}] Changing the measurements primary key from {} to {}", replicaId, keyColumns, KEY_COLUMNS);
+
+        int merged = mergeDuplicates(session, connection);
+        if (merged > 0) {
+            log.warn("[Replica {}] Merged duplicate measurements into {} device-hours", replicaId, merged);
+        }
+
+        List<String> changes = new ArrayList<>();
+        if (exists(session, COLUMN_EXISTS_SQL, LEGACY_ID_COLUMN)) {
+            // takes the old primary key with it
+            changes.add("DROP COLUMN " + LEGACY_ID_COLUMN);
+        } else if (!keyColumns.isEmpty()) {
+            changes.add("DROP PRIMARY KEY");
+        }
+        if (exists(session, INDEX_EXISTS_SQL, LEGACY_UNIQUE_INDEX)) {
+            changes.add("DROP INDEX " + LEGACY_UNIQUE_INDEX);
+        }
+        changes.add("ADD PRIMARY KEY (" + String.join(", ", KEY_COLUMNS) + ")");
+
+        // fails when another writer added a duplicate since the merge; startup then aborts and the next start merges again
+        session.execute("ALTER TABLE measurements " + String.join(", ", changes));
+        log.info("✅ [Replica {}] measurements is keyed by {}", replicaId, KEY_COLUMNS);
+    }
+
+    // replaces every group of rows sharing a device-hour by one row holding their sums, in one transaction
+    private int mergeDuplicates(JdbcTemplate session, Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            session.execute("DROP TEMPORARY TABLE IF EXISTS measurements_merged");
+            session.execute(COLLECT_DUPLICATES_SQL);
+            session.update(DELETE_DUPLICATES_SQL);
+            int merged = session.update(INSERT_MERGED_SQL);
+            connection.commit();
+            return merged;
+        } catch (RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            session.execute("DROP TEMPORARY TABLE IF EXISTS measurements_merged");
+        }
+    }
+
+    private static boolean hasHourlyKey(JdbcTemplate template) {
+        return template.queryForList(KEY_COLUMNS_SQL, String.class).equals(KEY_COLUMNS);
+    }
+
+    private static boolean exists(JdbcTemplate template, String sql, String name) {
+        Integer count = template.queryForObject(sql, Integer.class, name);
+        return count != null && count > 0;
+    }
+}
@@ -1,19 +1,38 @@
 package com.vio.monitoring_service.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vio.monitoring_service.dto.ConsumptionTotalResponse;
 import com.vio.monitoring_service.dto.DailyConsumptionResponse;
-import com.vio.monitoring_service.dto.HourlyConsumptionResponse;
-import com.vio.monitoring_service.model.Measurement;
+import com.vio.monitoring_service.dto.PeriodConsumptionResponse;
+import com.vio.monitoring_service.dto.UserDailyConsumptionResponse;
+import com.vio.monitoring_service.event.LiveConsumptionUpdate;
+import com.vio.monitoring_service.handler.InvalidQueryException;
+import com.vio.monitoring_service.model.DailyConsumption;
+import com.vio.monitoring_service.model.MonthlyConsumption;
+import com.vio.monitoring_service.repository.ConsumptionRangeRepository;
+import com.vio.monitoring_service.repository.DailyConsumptionRepository;
 import com.vio.monitoring_service.repository.MeasurementRepository;
-import com.vio.monitoring_service.repository.MonitoredDeviceRepository;
 import com.vio.monitoring_service.handler.ResourceNotFoundException;
+import com.vio.monitoring_service.repository.MonthlyConsumptionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -21,66 +40,223 @@ import java.util.stream.Collectors;
 public class MonitoringService {
 
     private final MeasurementRepository measurementRepository;
-    private final MonitoredDeviceRepository monitoredDeviceRepository;
+    private final DailyConsumptionRepository dailyConsumptionRepository;
+    private final MonthlyConsumptionRepository monthlyConsumptionRepository;
+    private final ConsumptionRangeRepository consumptionRangeRepository;
+    private final DeviceRegistry deviceRegistry;
+    private final DailyResponseCache dailyResponseCache;
+    private final LiveConsumptionRegistry liveConsumptionRegistry;
+    private final MeasurementArchive measurementArchive;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.range.max-days:3660}")
+    private long maxRangeDays;
 
     public DailyConsumptionResponse getDailyConsumption(Long deviceId, LocalDate date) {
         log.info("Fetching daily consumption for device {} on {}", deviceId, date);
 
-        if (!monitoredDeviceRepository.existsById(deviceId)) {
-            throw new ResourceNotFoundException("Device " + deviceId + " not found in monitoring system");
-        }
+        requireDevice(deviceId);
+
+        // hours without readings keep zero consumption (for complete 24h display)
+        DailyConsumptionResponse response = new DailyConsumptionResponse(deviceId, date);
+        measurementRepository.forEachHour(List.of(deviceId), date, (id, hour, consumption, measurementCount) -> response.addHour(hour, consumption, measurementCount));
+
+        log.info("Retrieved daily consumption for device {} on {}, total: {} kWh", deviceId, date, response.getTotalDailyConsumption());
+        return response;
+    }
+
+    public DailyResponseCache.CachedResponse getCachedDailyConsumption(Long deviceId, LocalDate date) {
+        requireDevice(deviceId);
+        return dailyResponseCache.get(deviceId, date, () -> getDailyConsumption(deviceId, date));
+    }
 
-        // Fetch measurements for the day
-        List<Measurement> measurements = measurementRepository.findByDeviceIdAndDateOrderByHourAsc(deviceId, date);
+    public SseEmitter streamLiveConsumption(Long deviceId) {
+        log.info("Opening live consumption stream for device {}", deviceId);
+        requireDevice(deviceId);
 
-        // Convert to hourly responses
-        List<HourlyConsumptionResponse> hourlyData = measurements.stream()
-                .map(m -> HourlyConsumptionResponse.builder()
+        // the newest stored hour is sent right away, later totals are pushed as they are flushed
+        LiveConsumptionUpdate initial = measurementRepository.findFirstByDeviceIdOrderByDateDescHourDesc(deviceId)
+                .map(m -> LiveConsumptionUpdate.builder()
+                        .deviceId(deviceId)
+                        .date(m.getDate())
                         .hour(m.getHour())
                         .consumption(m.getHourlyConsumption())
                         .measurementCount(m.getMeasurementCount())
                         .build())
-                .collect(Collectors.toList());
+                .orElse(null);
+        return liveConsumptionRegistry.subscribe(deviceId, initial);
+    }
 
-        // Calculate total daily consumption
-        Double totalDailyConsumption = measurements.stream()
-                .mapToDouble(Measurement::getHourlyConsumption)
-                .sum();
+    public UserDailyConsumptionResponse getUserDailyConsumption(Long userId, LocalDate date) {
+        log.info("Fetching daily consumption of all devices of user {} on {}", userId, date);
 
-        // Fill in missing hours with zero consumption (for complete 24h display)
-        hourlyData = fillMissingHours(hourlyData);
+        List<Long> deviceIds = deviceRegistry.findDevicesOfUser(userId);
+        Map<Long, DailyConsumptionResponse> byDevice = new LinkedHashMap<>();
+        deviceIds.forEach(deviceId -> byDevice.put(deviceId, new DailyConsumptionResponse(deviceId, date)));
 
-        log.info("Retrieved {} hourly measurements for device {} on {}, total: {} kWh", hourlyData.size(), deviceId, date, totalDailyConsumption);
+        // one query for the whole fleet, grouped per device here
+        if (!deviceIds.isEmpty()) {
+            measurementRepository.forEachHour(deviceIds, date, (deviceId, hour, consumption, measurementCount) -> byDevice.get(deviceId).addHour(hour, consumption, measurementCount));
+        }
 
-        return DailyConsumptionResponse.builder()
-                .deviceId(deviceId)
+        List<DailyConsumptionResponse> devices = new ArrayList<>(byDevice.values());
+        double totalDailyConsumption = 0;
+        for (DailyConsumptionResponse device : devices) {
+            totalDailyConsumption += device.getTotalDailyConsumption();
+        }
+
+        log.info("Retrieved daily consumption of {} devices of user {} on {}, total: {} kWh", devices.size(), userId, date, totalDailyConsumption);
+
+        return UserDailyConsumptionResponse.builder()
+                .userId(userId)
                 .date(date)
-                .hourlyData(hourlyData)
+                .devices(devices)
                 .totalDailyConsumption(totalDailyConsumption)
                 .build();
     }
 
-    private List<HourlyConsumptionResponse> fillMissingHours(List<HourlyConsumptionResponse> hourlyData) {
-        List<HourlyConsumptionResponse> completeData = new ArrayList<>();
-
-        for (int hour = 0; hour < 24; hour++) {
-            final int currentHour = hour;
-            HourlyConsumptionResponse existingData = hourlyData.stream()
-                    .filter(h -> h.getHour() == currentHour)
-                    .findFirst()
-                    .orElse(null);
-
-            if (existingData != null) {
-                completeData.add(existingData);
-            } else {
-                completeData.add(HourlyConsumptionResponse.builder()
-                        .hour(currentHour)
-                        .consumption(0.0)
-                        .measurementCount(0)
-                        .build());
+    public PeriodConsumptionResponse getWeeklyConsumption(Long deviceId, LocalDate date) {
+        LocalDate monday = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        log.info("Fetching weekly consumption for device {} for the week of {}", deviceId, monday);
+        requireDevice(deviceId);
+        return dailyTotals(deviceId, monday, monday.plusDays(6));
+    }
+
+    public PeriodConsumptionResponse getMonthlyConsumption(Long deviceId, int year, int month) {
+        validateYear(year);
+        if (month < 1 || month > 12) {
+            throw new InvalidQueryException("Month must be between 1 and 12");
+        }
+        YearMonth yearMonth = YearMonth.of(year, month);
+        log.info("Fetching monthly consumption for device {} for {}", deviceId, yearMonth);
+        requireDevice(deviceId);
+        return dailyTotals(deviceId, yearMonth.atDay(1), yearMonth.atEndOfMonth());
+    }
+
+    public PeriodConsumptionResponse getYearlyConsumption(Long deviceId, int year) {
+        log.info("Fetching yearly consumption for device {} for {}", deviceId, year);
+        validateYear(year);
+        requireDevice(deviceId);
+
+        // at most 12 rows from the monthly rollup
+        ConsumptionTotalResponse[] months = new ConsumptionTotalResponse[12];
+        for (MonthlyConsumption row : monthlyConsumptionRepository.findByDeviceIdAndYearOrderByMonthAsc(deviceId, year)) {
+            months[row.getMonth() - 1] = total(LocalDate.of(year, row.getMonth(), 1), row.getConsumption(), row.getMeasurementCount());
+        }
+        for (int month = 1; month <= 12; month++) {
+            if (months[month - 1] == null) {
+                months[month - 1] = total(LocalDate.of(year, month, 1), 0.0, 0);
+            }
+        }
+
+        return period(deviceId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31), List.of(months));
+    }
+
+    /**
+     * Validates the query and returns a body that streams one JSON entry per stored row while
+     * reading them, so memory does not depend on the length of the range. Periods without
+     * readings are omitted.
+     */
+    public StreamingResponseBody streamConsumption(Long deviceId, LocalDate from, LocalDate to, String granularity) {
+        String unit = granularity.toLowerCase(Locale.ROOT);
+        if (!unit.equals("hour") && !unit.equals("day") && !unit.equals("month")) {
+            throw new InvalidQueryException("Granularity must be one of hour, day, month");
+        }
+        if (from.isAfter(to)) {
+            throw new InvalidQueryException("'from' must not be after 'to'");
+        }
+        if (to.toEpochDay() - from.toEpochDay() >= maxRangeDays) {
+            throw new InvalidQueryException("Range must not exceed " + maxRangeDays + " days");
+        }
+        requireDevice(deviceId);
+        log.info("Streaming {} consumption for device {} from {} to {}", unit, deviceId, from, to);
+
+        return output -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+                json.writeStartObject();
+                json.writeNumberField("deviceId", deviceId);
+                json.writeStringField("startDate", from.toString());
+                json.writeStringField("endDate", to.toString());
+                json.writeStringField("granularity", unit);
+                json.writeArrayFieldStart("data");
+
+                double[] total = new double[1];
+                ConsumptionRangeRepository.RowConsumer writer = (date, hour, consumption, measurementCount) -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeStringField("periodStart", unit.equals("hour") ? date + (hour < 10 ? "T0" : "T") + hour + ":00:00" : date.toString());
+                        json.writeNumberField("consumption", consumption);
+                        json.writeNumberField("measurementCount", measurementCount);
+                        json.writeEndObject();
+                    } catch (IOException e) {
+                        // client went away, stops the result set iteration
+                        throw new UncheckedIOException(e);
+                    }
+                    total[0] += consumption;
+                };
+
+                switch (unit) {
+                    case "hour" -> measurementArchive.streamHourly(deviceId, from, to, writer);
+                    case "day" -> consumptionRangeRepository.streamDaily(deviceId, from, to, writer);
+                    default -> consumptionRangeRepository.streamMonthly(deviceId, from, to, writer);
+                }
+
+                json.writeEndArray();
+                json.writeNumberField("totalConsumption", total[0]);
+                json.writeEndObject();
+            }
+        };
+    }
+
+    private PeriodConsumptionResponse dailyTotals(Long deviceId, LocalDate startDate, LocalDate endDate) {
+        int days = (int) (endDate.toEpochDay() - startDate.toEpochDay()) + 1;
+        ConsumptionTotalResponse[] totals = new ConsumptionTotalResponse[days];
+        for (DailyConsumption row : dailyConsumptionRepository.findByDeviceIdAndDateBetweenOrderByDateAsc(deviceId, startDate, endDate)) {
+            totals[(int) (row.getDate().toEpochDay() - startDate.toEpochDay())] = total(row.getDate(), row.getConsumption(), row.getMeasurementCount());
+        }
+        for (int day = 0; day < days; day++) {
+            if (totals[day] == null) {
+                totals[day] = total(startDate.plusDays(day), 0.0, 0);
             }
         }
 
-        return completeData;
+        return period(deviceId, startDate, endDate, List.of(totals));
+    }
+
+    private PeriodConsumptionResponse period(Long deviceId, LocalDate startDate, LocalDate endDate, List<ConsumptionTotalResponse> data) {
+        double totalConsumption = 0;
+        for (ConsumptionTotalResponse entry : data) {
+            totalConsumption += entry.getConsumption();
+        }
+
+        log.info("Retrieved {} rollup entries for device {} from {} to {}, total: {} kWh", data.size(), deviceId, startDate, endDate, totalConsumption);
+
+        return PeriodConsumptionResponse.builder()
+                .deviceId(deviceId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .data(data)
+                .totalConsumption(totalConsumption)
+                .build();
+    }
+
+    private static ConsumptionTotalResponse total(LocalDate periodStart, Double consumption, Integer measurementCount) {
+        return ConsumptionTotalResponse.builder()
+                .periodStart(periodStart)
+                .consumption(consumption)
+                .measurementCount(measurementCount)
+                .build();
+    }
+
+    private static void validateYear(int year) {
+        if (year < 2000 || year > 9999) {
+            throw new InvalidQueryException("Year must be between 2000 and 9999");
+        }
+    }
+
+    private void requireDevice(Long deviceId) {
+        if (!deviceRegistry.contains(deviceId)) {
+            throw new ResourceNotFoundException("Device " + deviceId + " not found in monitoring system");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.producer.AlertPublisher;
+import com.vio.monitoring_service.rules.RuleEvaluation;
+import com.vio.monitoring_service.util.LongObjectHashMap;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns rule evaluations over their threshold into one alert per incident. A device goes
+ * NORMAL → EXCEEDED on the first reading that takes a rule over its threshold, which is the only
+ * reading that alerts right away. While it stays over, a "still exceeding" summary with the peak
+ * and the number of readings over the threshold is sent every summary interval. A reading that
+ * leaves every rule below threshold × re-arm ratio moves it to COOLDOWN, and only after the
+ * cooldown passes without a reading above that is it NORMAL again, so a device hovering around
+ * its limit stays a single incident. Devices in NORMAL are not held at all.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OverconsumptionDetector {
+    private static final byte EXCEEDED = 1;
+    private static final byte COOLDOWN = 2;
+
+    private final AlertPublisher alertPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.alerts.rearm-ratio:0.9}")
+    private double rearmRatio;
+
+    @Value("${app.alerts.cooldown-ms:1800000}")
+    private long cooldownMs;
+
+    @Value("${app.alerts.summary-interval-ms:3600000}")
+    private long summaryIntervalMs;
+
+    // devices that stopped reporting in the middle of an incident
+    @Value("${app.alerts.idle-timeout-ms:21600000}")
+    private long idleTimeoutMs;
+
+    // guarded by itself
+    private final LongObjectHashMap<Incident> incidents = new LongObjectHashMap<>();
+    private final LongAdder incidentAlerts = new LongAdder();
+    private final LongAdder summaryAlerts = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("monitoring.alerts.published", incidentAlerts, LongAdder::sum)
+                .tag("type", "exceeded")
+                .register(meterRegistry);
+        FunctionCounter.builder("monitoring.alerts.published", summaryAlerts, LongAdder::sum)
+                .tag("type", "still_exceeding")
+                .register(meterRegistry);
+        FunctionCounter.builder("monitoring.alerts.suppressed", suppressed, LongAdder::sum)
+                .description("Readings over the limit folded into an open incident instead of alerting")
+                .register(meterRegistry);
+        Gauge.builder("monitoring.alerts.open.incidents", this, OverconsumptionDetector::openIncidents)
+                .description("Devices currently exceeding their limit or cooling down")
+                .register(meterRegistry);
+    }
+
+    public void check(long deviceId, Long userId, LocalDateTime timestamp, RuleEvaluation evaluation) {
+        long now = System.currentTimeMillis();
+        boolean over = evaluation.isExceeded();
+        boolean belowRearm = evaluation.isBelow(rearmRatio);
+
+        Incident opened;
+        synchronized (incidents) {
+            Incident incident = incidents.get(deviceId);
+            if (incident == null) {
+                if (!over) {
+                    return;
+                }
+                opened = new Incident(userId, timestamp, evaluation, now);
+                incidents.put(deviceId, opened);
+            } else {
+                incident.update(userId, evaluation, now);
+                if (over) {
+                    // back over the limit during cooldown is still the same incident
+                    incident.state = EXCEEDED;
+                    incident.peak = Math.max(incident.peak, evaluation.observed());
+                    incident.readingsOverLimit++;
+                    suppressed.increment();
+                } else if (!belowRearm) {
+                    // between the re-arm threshold and the limit the cooldown starts over
+                    incident.cooldownSince = now;
+                } else if (incident.state == EXCEEDED) {
+                    incident.state = COOLDOWN;
+                    incident.cooldownSince = now;
+                }
+                return;
+            }
+        }
+
+        log.warn("[Replica {}] Overconsumption detected for device {}: {} {} > {}", replicaId, deviceId, evaluation.rule(), evaluation.observed(), evaluation.threshold());
+        if (alertPublisher.publishOverconsumptionAlert(deviceId, userId, evaluation, timestamp)) {
+            incidentAlerts.increment();
+            return;
+        }
+
+        log.warn("[Replica {}] Alert queue is full, overconsumption alert for device {} was not sent", replicaId, deviceId);
+        // the next reading over the limit opens the incident again
+        synchronized (incidents) {
+            if (incidents.get(deviceId) == opened) {
+                incidents.remove(deviceId);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.alerts.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        List<Summary> summaries = new ArrayList<>();
+        int closed;
+
+        synchronized (incidents) {
+            incidents.forEach((deviceId, incident) -> {
+                if (incident.state == EXCEEDED && incident.readingsOverLimit > 0 && now - incident.lastAlertAt >= summaryIntervalMs) {
+                    summaries.add(new Summary(deviceId, incident.userId, incident.last, incident.peak, incident.readingsOverLimit, incident.exceededSince));
+                    incident.lastAlertAt = now;
+                    incident.peak = 0;
+                    incident.readingsOverLimit = 0;
+                }
+            });
+            int before = incidents.size();
+            incidents.removeIf(deviceId -> isClosed(incidents.get(deviceId), now));
+            closed = before - incidents.size();
+        }
+
+        for (Summary summary : summaries) {
+            if (alertPublisher.publishStillExceedingAlert(summary.deviceId(), summary.userId(), summary.last(), summary.peak(),
+                    summary.readingsOverLimit(), summary.exceededSince())) {
+                summaryAlerts.increment();
+            } else {
+                log.warn("[Replica {}] Alert queue is full, still exceeding alert for device {} was not sent", replicaId, summary.deviceId());
+            }
+        }
+        if (closed > 0) {
+            log.debug("[Replica {}] Closed {} overconsumption incidents", replicaId, closed);
+        }
+    }
+
+    public void forget(long deviceId) {
+        synchronized (incidents) {
+            incidents.remove(deviceId);
+        }
+    }
+
+    private boolean isClosed(Incident incident, long now) {
+        if (now - incident.lastSeenAt >= idleTimeoutMs) {
+            return true;
+        }
+        return incident.state == COOLDOWN && now - incident.cooldownSince >= cooldownMs;
+    }
+
+    private int openIncidents() {
+        synchronized (incidents) {
+            return incidents.size();
+        }
+    }
+
+    private static final class Incident {
+        private byte state = EXCEEDED;
+        private final LocalDateTime exceededSince;
+        private Long userId;
+        private RuleEvaluation last;
+        private double peak;
+        // since the last alert of the incident
+        private int readingsOverLimit;
+        private long lastAlertAt;
+        private long lastSeenAt;
+        private long cooldownSince;
+
+        private Incident(Long userId, LocalDateTime exceededSince, RuleEvaluation evaluation, long now) {
+            this.exceededSince = exceededSince;
+            this.userId = userId;
+            this.last = evaluation;
+            this.lastAlertAt = now;
+            this.lastSeenAt = now;
+        }
+
+        private void update(Long userId, RuleEvaluation evaluation, long now) {
+            this.userId = userId;
+            this.last = evaluation;
+            this.lastSeenAt = now;
+        }
+    }
+
+    private record Summary(long deviceId, Long userId, RuleEvaluation last, double peak, int readingsOverLimit, LocalDateTime exceededSince) {
+    }
+}
@@ -0,0 +1,175 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.model.IngestWatermark;
+import com.vio.monitoring_service.repository.IngestWatermarkRepository;
+import com.vio.monitoring_service.util.LongObjectHashMap;
+import com.vio.monitoring_service.util.TimestampWindow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Suppresses redelivered readings by (deviceId, timestamp). Every device has a window of the
+ * timestamps accepted within the horizon below its newest reading. A window is seeded once, when a
+ * device is first seen, with the timestamps the aggregation flush committed to its ingest
+ * watermark row, so checking a reading never touches the database and a restart still recognises
+ * committed readings. Only timestamps in the window are duplicates, older readings are accepted.
+ * Windows of devices that sent nothing for a whole horizon are dropped by {@link #evictIdle} and
+ * seeded again from the database if the device returns.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingDeduplicator {
+    private final IngestWatermarkRepository ingestWatermarkRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.dedup.horizon-ms:21600000}")
+    private long horizonMs;
+
+    @Value("${app.dedup.max-timestamps:4096}")
+    private int maxTimestamps;
+
+    // guarded by itself, every window is guarded by its own monitor
+    private final LongObjectHashMap<DeviceWindow> windows = new LongObjectHashMap<>();
+    private final LongAdder duplicates = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("monitoring.ingest.duplicates", duplicates, LongAdder::sum)
+                .description("Readings dropped because their (device, timestamp) was already aggregated")
+                .register(meterRegistry);
+        Gauge.builder("monitoring.ingest.dedup.windows", this, ReadingDeduplicator::windowCount)
+                .description("Devices whose recent reading timestamps are held in memory")
+                .register(meterRegistry);
+    }
+
+    // loads the committed timestamps of all devices of a batch that were not seen before with a single query
+    public void prepare(Collection<Long> deviceIds) {
+        if (!enabled) {
+            return;
+        }
+
+        Set<Long> missing = new HashSet<>();
+        synchronized (windows) {
+            for (Long deviceId : deviceIds) {
+                if (deviceId != null && !windows.containsKey(deviceId)) {
+                    missing.add(deviceId);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, long[]> committed = new HashMap<>();
+        for (IngestWatermark watermark : ingestWatermarkRepository.findAllById(missing)) {
+            committed.put(watermark.getDeviceId(), watermark.committedTimestamps());
+        }
+
+        synchronized (windows) {
+            for (Long deviceId : missing) {
+                if (!windows.containsKey(deviceId)) {
+                    windows.put(deviceId, new DeviceWindow(new TimestampWindow(horizonMs, maxTimestamps, committed.getOrDefault(deviceId, new long[0]))));
+                }
+            }
+        }
+        log.debug("[Replica {}] Loaded committed reading timestamps of {} devices", replicaId, missing.size());
+    }
+
+    // false when the reading was already accepted within the horizon, by this replica or by a committed flush
+    public boolean isFirstDelivery(long deviceId, LocalDateTime timestamp) {
+        if (!enabled) {
+            return true;
+        }
+
+        DeviceWindow window;
+        synchronized (windows) {
+            window = windows.get(deviceId);
+        }
+        if (window == null) {
+            prepare(List.of(deviceId));
+            synchronized (windows) {
+                window = windows.get(deviceId);
+            }
+        }
+
+        boolean accepted;
+        synchronized (window) {
+            window.touchedAt = System.currentTimeMillis();
+            accepted = window.timestamps.add(TimestampWindow.toMillis(timestamp));
+        }
+        if (!accepted) {
+            duplicates.increment();
+        }
+        return accepted;
+    }
+
+    // undoes isFirstDelivery for a reading whose processing failed before it was buffered
+    public void release(long deviceId, LocalDateTime timestamp) {
+        if (!enabled) {
+            return;
+        }
+
+        DeviceWindow window;
+        synchronized (windows) {
+            window = windows.get(deviceId);
+        }
+        if (window != null) {
+            synchronized (window) {
+                window.timestamps.remove(TimestampWindow.toMillis(timestamp));
+            }
+        }
+    }
+
+    // drops the windows of devices without a reading for a whole horizon; devices with readings still
+    // held in open hour windows are kept, their timestamps are not committed yet and could not be reloaded
+    public void evictIdle(Set<Long> held) {
+        if (!enabled) {
+            return;
+        }
+
+        long idleBefore = System.currentTimeMillis() - horizonMs;
+        synchronized (windows) {
+            windows.removeIf(deviceId -> windows.get(deviceId).touchedAt < idleBefore && !held.contains(deviceId));
+        }
+    }
+
+    public void forget(long deviceId) {
+        synchronized (windows) {
+            windows.remove(deviceId);
+        }
+    }
+
+    private int windowCount() {
+        synchronized (windows) {
+            return windows.size();
+        }
+    }
+
+    private static final class DeviceWindow {
+        private final TimestampWindow timestamps;
+        // wall-clock time of the last reading, read by the sweep without the window's monitor
+        private volatile long touchedAt;
+
+        private DeviceWindow(TimestampWindow timestamps) {
+            this.timestamps = timestamps;
+            this.touchedAt = System.currentTimeMillis();
+        }
+    }
+}
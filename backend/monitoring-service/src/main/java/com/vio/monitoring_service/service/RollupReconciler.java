@@ -0,0 +1,71 @@
+package com.vio.monitoring_service.service;
+
+import com.vio.monitoring_service.repository.DailyConsumptionRepository;
+import com.vio.monitoring_service.repository.MeasurementRepository;
+import com.vio.monitoring_service.repository.MonthlyConsumptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Recomputes the daily and monthly rollups from the hourly measurements. The rollups are kept
+ * current incrementally by {@link MeasurementAggregator}; this job repairs recent days after the
+ * fact and backfills the tables when they are empty. Runs on replica 1 only, which always exists.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollupReconciler {
+    private final MeasurementRepository measurementRepository;
+    private final DailyConsumptionRepository dailyConsumptionRepository;
+    private final MonthlyConsumptionRepository monthlyConsumptionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.replica.id:1}")
+    private int replicaId;
+
+    @Value("${app.rollup.reconcile-days:3}")
+    private int reconcileDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (replicaId != 1 || dailyConsumptionRepository.count() > 0) {
+            return;
+        }
+
+        measurementRepository.findEarliestDate().ifPresent(earliest -> {
+            log.info("[Replica {}] Rollup tables are empty, backfilling from {}", replicaId, earliest);
+            rebuild(earliest, LocalDate.now());
+        });
+    }
+
+    @Scheduled(cron = "${app.rollup.reconcile-cron:0 30 0 * * *}")
+    public void reconcile() {
+        if (replicaId != 1) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(reconcileDays), today.minusDays(1));
+    }
+
+    private void rebuild(LocalDate startDate, LocalDate endDate) {
+        try {
+            // monthly rows are derived from the daily rows, so both are rebuilt in one transaction
+            transactionTemplate.executeWithoutResult(status -> {
+                int days = dailyConsumptionRepository.rebuild(startDate, endDate);
+                int months = monthlyConsumptionRepository.rebuild(startDate, endDate);
+                log.info("✅ [Replica {}] Reconciled rollups for {} to {} ({} daily, {} monthly rows)", replicaId, startDate, endDate, days, months);
+            });
+        } catch (Exception e) {
+            log.error("❌ [Replica {}] Failed to reconcile rollups for {} to {}: {}", replicaId, startDate, endDate, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.vio.monitoring_service.util;
+
+/**
+ * Running mean and variance of one device's readings for each hour of the day, kept with
+ * Welford's algorithm in three primitive arrays of 24 slots. Once a slot holds maxSamples
+ * readings its count stops growing, so older readings fade out and the baseline follows
+ * lasting changes in usage. Not thread-safe, callers guard concurrent access.
+ */
+public class HourOfDayBaseline {
+    private static final int SLOTS = 24;
+
+    private final int maxSamples;
+    private final int[] counts = new int[SLOTS];
+    private final double[] means = new double[SLOTS];
+    private final double[] squaredDeviations = new double[SLOTS];
+
+    public HourOfDayBaseline(int maxSamples) {
+        this.maxSamples = Math.max(2, maxSamples);
+    }
+
+    public void add(int hour, double value) {
+        int count = counts[hour];
+        if (count < maxSamples) {
+            counts[hour] = ++count;
+        } else {
+            // keep the variance on the same footing as the capped count
+            squaredDeviations[hour] -= squaredDeviations[hour] / count;
+        }
+
+        double delta = value - means[hour];
+        means[hour] += delta / count;
+        squaredDeviations[hour] += delta * (value - means[hour]);
+    }
+
+    public int count(int hour) {
+        return counts[hour];
+    }
+
+    public double mean(int hour) {
+        return means[hour];
+    }
+
+    public double stddev(int hour) {
+        int count = counts[hour];
+        return count < 2 ? 0 : Math.sqrt(Math.max(0, squaredDeviations[hour]) / (count - 1));
+    }
+}
@@ -0,0 +1,147 @@
+package com.vio.monitoring_service.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * The accepted reading timestamps of one device within the horizon below its newest one, kept
+ * sorted in an array. Only a timestamp in the window is reported as already seen. Timestamps
+ * older than the horizon, or than the oldest one kept once the window is full, are not tracked
+ * and always accepted. Not thread-safe, callers guard concurrent access.
+ */
+public class TimestampWindow {
+    private final long horizonMs;
+    private final int maxSize;
+    private long[] timestamps;
+    private int size;
+
+    public TimestampWindow(long horizonMs, int maxSize) {
+        this(horizonMs, maxSize, new long[0]);
+    }
+
+    // seeded with timestamps accepted before, e.g. the committed ones of a previous run
+    public TimestampWindow(long horizonMs, int maxSize, long[] seen) {
+        this.horizonMs = horizonMs;
+        this.maxSize = maxSize;
+        this.timestamps = new long[Math.max(4, Math.min(maxSize, seen.length))];
+        for (long timestamp : seen) {
+            add(timestamp);
+        }
+    }
+
+    // returns false when the timestamp was already seen, otherwise remembers it
+    public boolean add(long timestamp) {
+        if (size > 0 && (timestamp < timestamps[size - 1] - horizonMs || (size == maxSize && timestamp < timestamps[0]))) {
+            return true;
+        }
+
+        int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+        if (index >= 0) {
+            return false;
+        }
+
+        int insertion = -index - 1;
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, Math.min(maxSize + 1, size << 1));
+        }
+        System.arraycopy(timestamps, insertion, timestamps, insertion + 1, size - insertion);
+        timestamps[insertion] = timestamp;
+        size++;
+
+        // timestamps that fell behind the horizon, or past the size limit, leave the window
+        long oldest = timestamps[size - 1] - horizonMs;
+        int expired = 0;
+        while (expired < size && (timestamps[expired] < oldest || size - expired > maxSize)) {
+            expired++;
+        }
+        if (expired > 0) {
+            System.arraycopy(timestamps, expired, timestamps, 0, size - expired);
+            size -= expired;
+        }
+        return true;
+    }
+
+    public void remove(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+        if (index >= 0) {
+            System.arraycopy(timestamps, index + 1, timestamps, index, size - index - 1);
+            size--;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(timestamps, size);
+    }
+
+    public static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // sorted timestamps as the first one followed by unsigned varint deltas
+    public static byte[] encode(long[] sorted) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + sorted.length * 3);
+        if (sorted.length > 0) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (sorted[0] >>> shift));
+            }
+            writeDeltas(out, sorted[0], sorted, 1);
+        }
+        return out.toByteArray();
+    }
+
+    // the varint deltas of sorted timestamps that follow previous, appending them to an encoding ending at previous extends it
+    public static byte[] encodeAfter(long previous, long[] sorted) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sorted.length * 3);
+        writeDeltas(out, previous, sorted, 0);
+        return out.toByteArray();
+    }
+
+    // the first timestamp of an encoding, without decoding the rest
+    public static long first(byte[] encoded) {
+        return ByteBuffer.wrap(encoded).getLong();
+    }
+
+    private static void writeDeltas(ByteArrayOutputStream out, long previous, long[] sorted, int from) {
+        for (int i = from; i < sorted.length; i++) {
+            long value = sorted[i] - previous;
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+            previous = sorted[i];
+        }
+    }
+
+    public static long[] decode(byte[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            return new long[0];
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        long[] decoded = new long[Math.max(1, encoded.length)];
+        int count = 0;
+        long previous = in.getLong();
+        decoded[count++] = previous;
+        while (in.hasRemaining()) {
+            long delta = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.get() & 0xFF;
+                delta |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            previous += delta;
+            decoded[count++] = previous;
+        }
+        return Arrays.copyOf(decoded, count);
+    }
+}
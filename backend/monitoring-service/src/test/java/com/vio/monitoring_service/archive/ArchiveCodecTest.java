@@ -0,0 +1,130 @@
+package com.vio.monitoring_service.archive;
+
+import com.vio.monitoring_service.archive.ArchiveCodec.DeviceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArchiveCodecTest {
+
+	@Test
+	void emptySeriesRoundTrip() {
+		DeviceSeries decoded = roundTrip(new DeviceSeries(0));
+
+		assertEquals(0, decoded.size());
+	}
+
+	@Test
+	void hourlyConsumptionRoundTrip() {
+		DeviceSeries series = new DeviceSeries(0);
+		for (int hour = 0; hour < 744; hour++) {
+			series.add(hour, 0.25 + (hour % 24) * 0.125, 6);
+		}
+
+		assertSeriesEquals(series, roundTrip(series));
+	}
+
+	@Test
+	void gapsAndLargeCountsRoundTrip() {
+		DeviceSeries series = new DeviceSeries(0);
+		series.add(0, 1.5, 1);
+		series.add(3, 1.5, 127);
+		series.add(200, 2.75, 128);
+		series.add(743, 0.0, 1_000_000);
+
+		assertSeriesEquals(series, roundTrip(series));
+	}
+
+	@Test
+	void unusualValuesRoundTrip() {
+		DeviceSeries series = new DeviceSeries(0);
+		double[] values = {0.0, -0.0, -12.5, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN,
+				Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1e-300, 42.0, 42.0, -1.0};
+		for (int i = 0; i < values.length; i++) {
+			series.add(i, values[i], i);
+		}
+
+		assertSeriesEquals(series, roundTrip(series));
+	}
+
+	@Test
+	void randomValuesRoundTrip() {
+		Random random = new Random(20260101);
+		for (int run = 0; run < 100; run++) {
+			DeviceSeries series = new DeviceSeries(0);
+			int hour = random.nextInt(24);
+			while (hour < 744) {
+				double value = random.nextBoolean() ? random.nextDouble() * 10 : Double.longBitsToDouble(random.nextLong());
+				series.add(hour, value, random.nextInt(3_600));
+				hour += 1 + random.nextInt(48);
+			}
+
+			assertSeriesEquals(series, roundTrip(series));
+		}
+	}
+
+	@Test
+	void repeatedValuesCostOneBitEach() {
+		DeviceSeries series = new DeviceSeries(0);
+		for (int hour = 0; hour < 744; hour++) {
+			series.add(hour, 3.2, 60);
+		}
+
+		// 2 bytes of size, 744 hour and count varints of one byte each, 8 bytes of the first value and 743 bits
+		assertEquals(2 + 744 + 744 + 8 + 93, ArchiveCodec.encode(series).length);
+	}
+
+	@Test
+	void decodesBlockInsideALargerBuffer() {
+		DeviceSeries first = new DeviceSeries(0);
+		first.add(5, 1.25, 10);
+		first.add(6, 1.5, 12);
+		DeviceSeries second = new DeviceSeries(0);
+		second.add(100, 7.0, 3);
+
+		byte[] a = ArchiveCodec.encode(first);
+		byte[] b = ArchiveCodec.encode(second);
+		ByteBuffer file = ByteBuffer.allocate(a.length + b.length).put(a).put(b).flip();
+
+		assertSeriesEquals(first, ArchiveCodec.decode(file.slice(0, a.length)));
+		assertSeriesEquals(second, ArchiveCodec.decode(file.slice(a.length, b.length)));
+	}
+
+	@Test
+	void mergeSumsRowsOfTheSameHour() {
+		DeviceSeries archived = new DeviceSeries(0);
+		archived.add(1, 1.0, 2);
+		archived.add(3, 3.0, 4);
+		DeviceSeries late = new DeviceSeries(0);
+		late.add(0, 0.5, 1);
+		late.add(3, 0.25, 1);
+		late.add(9, 9.0, 9);
+
+		DeviceSeries merged = DeviceSeries.merge(archived, late);
+
+		DeviceSeries expected = new DeviceSeries(0);
+		expected.add(0, 0.5, 1);
+		expected.add(1, 1.0, 2);
+		expected.add(3, 3.25, 5);
+		expected.add(9, 9.0, 9);
+		assertSeriesEquals(expected, merged);
+	}
+
+	private static DeviceSeries roundTrip(DeviceSeries series) {
+		return ArchiveCodec.decode(ByteBuffer.wrap(ArchiveCodec.encode(series)));
+	}
+
+	private static void assertSeriesEquals(DeviceSeries expected, DeviceSeries actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.hours[i], actual.hours[i], "hour of row " + i);
+			assertEquals(expected.counts[i], actual.counts[i], "count of row " + i);
+			// bit patterns, so NaN and negative zero must survive too
+			assertEquals(Double.doubleToRawLongBits(expected.consumption[i]), Double.doubleToRawLongBits(actual.consumption[i]), "consumption of row " + i);
+		}
+	}
+
+}
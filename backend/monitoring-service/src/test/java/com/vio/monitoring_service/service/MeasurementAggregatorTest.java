@@ -0,0 +1,138 @@
+package com.vio.monitoring_service.service;
+
+import com.rabbitmq.client.Channel;
+import com.vio.monitoring_service.producer.LiveConsumptionPublisher;
+import com.vio.monitoring_service.repository.DailyConsumptionRepository;
+import com.vio.monitoring_service.repository.IngestWatermarkRepository;
+import com.vio.monitoring_service.repository.MeasurementRepository;
+import com.vio.monitoring_service.repository.MeasurementRepositoryCustom.HourlyDelta;
+import com.vio.monitoring_service.repository.MonthlyConsumptionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementAggregatorTest {
+	private static final LocalDateTime TEN_O_CLOCK = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+	private final MeasurementRepository measurementRepository = mock(MeasurementRepository.class);
+	private final Channel channel = mock(Channel.class);
+	// every delta the measurement upsert was called with, also by failed flushes
+	private final List<HourlyDelta> upserted = new ArrayList<>();
+	private final List<Long> acks = new ArrayList<>();
+	private int failingFlushes;
+	private MeasurementAggregator aggregator;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() throws Exception {
+		doAnswer(invocation -> {
+			if (failingFlushes > 0) {
+				failingFlushes--;
+				throw new IllegalStateException("database unavailable");
+			}
+			upserted.addAll((Collection<HourlyDelta>) invocation.getArgument(0));
+			return null;
+		}).when(measurementRepository).upsertAll(any());
+		when(channel.isOpen()).thenReturn(true);
+		doAnswer(invocation -> acks.add(invocation.getArgument(0))).when(channel).basicAck(anyLong(), anyBoolean());
+
+		aggregator = new MeasurementAggregator(measurementRepository, mock(DailyConsumptionRepository.class),
+				mock(MonthlyConsumptionRepository.class), mock(IngestWatermarkRepository.class), mock(ReadingDeduplicator.class),
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(DailyResponseCache.class),
+				mock(LiveConsumptionPublisher.class), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(aggregator, "maxPendingReadings", 1000);
+		ReflectionTestUtils.setField(aggregator, "allowedLatenessMs", 120_000L);
+		// open windows are only written once their hour closes
+		ReflectionTestUtils.setField(aggregator, "maxOpenMs", 3_600_000L);
+		ReflectionTestUtils.setField(aggregator, "maxUnackedMessages", 800L);
+		ReflectionTestUtils.setField(aggregator, "watermarkIdleMs", 3_600_000L);
+		aggregator.init();
+	}
+
+	@Test
+	void failedFlushKeepsTheReadingsAndSendsNoAck() {
+		receive(1, TEN_O_CLOCK, 0.5);
+		receive(2, TEN_O_CLOCK.plusMinutes(10), 0.25);
+		failingFlushes = 1;
+
+		aggregator.flushOnShutdown();
+
+		assertEquals(List.of(), acks);
+		upserted.clear();
+
+		aggregator.scheduledFlush();
+
+		assertEquals(List.of(new HourlyDelta(1L, LocalDate.of(2025, 1, 1), 10, 0.75, 2)), upserted);
+		assertEquals(List.of(2L), acks);
+	}
+
+	@Test
+	void multipleAckNeverNamesARejectedTag() throws Exception {
+		receive(1, TEN_O_CLOCK, 0.5);
+		receive(2, TEN_O_CLOCK.plusMinutes(10), 0.5);
+		aggregator.reject(channel, 3, false);
+		aggregator.deferAck(channel, 3);
+
+		aggregator.flushOnShutdown();
+
+		verify(channel).basicNack(3, false, false);
+		assertEquals(List.of(2L), acks);
+	}
+
+	@Test
+	void rejectedTagsAreSkippedBelowAHeldReading() throws Exception {
+		receive(1, TEN_O_CLOCK, 0.5);
+		aggregator.reject(channel, 2, true);
+		aggregator.deferAck(channel, 2);
+		receive(3, TEN_O_CLOCK.plusHours(2), 0.5);
+
+		// hour 10 is closed by the watermark of the reading at 12:00, which stays held
+		aggregator.scheduledFlush();
+
+		verify(channel).basicNack(2, false, true);
+		assertEquals(List.of(1L), acks);
+	}
+
+	@Test
+	void ackIsHeldBackWhileTheHourWindowIsOpen() throws Exception {
+		receive(1, TEN_O_CLOCK, 0.5);
+		receive(2, TEN_O_CLOCK.plusMinutes(30), 0.5);
+
+		aggregator.scheduledFlush();
+
+		verify(channel, never()).basicAck(anyLong(), anyBoolean());
+		assertEquals(List.of(), upserted);
+
+		receive(3, TEN_O_CLOCK.plusHours(1).plusMinutes(5), 0.5);
+		aggregator.scheduledFlush();
+
+		assertEquals(List.of(new HourlyDelta(1L, LocalDate.of(2025, 1, 1), 10, 1.0, 2)), upserted);
+		// the reading at 11:05 is still held, so is its message
+		assertEquals(List.of(2L), acks);
+	}
+
+	// what the data listener does with a reading that passed its checks
+	private void receive(long deliveryTag, LocalDateTime timestamp, double value) {
+		aggregator.record(1L, timestamp, value, channel, deliveryTag);
+		aggregator.deferAck(channel, deliveryTag);
+	}
+}
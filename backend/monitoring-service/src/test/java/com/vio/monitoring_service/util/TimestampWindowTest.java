@@ -0,0 +1,158 @@
+package com.vio.monitoring_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimestampWindowTest {
+	private static final long HORIZON_MS = 10_000;
+
+	@Test
+	void rejectsOnlyTimestampsAlreadySeen() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 100);
+
+		assertTrue(window.add(5_000));
+		assertTrue(window.add(7_000));
+		// out of order, but never seen
+		assertTrue(window.add(6_000));
+		assertFalse(window.add(5_000));
+		assertFalse(window.add(6_000));
+		assertFalse(window.add(7_000));
+		assertArrayEquals(new long[]{5_000, 6_000, 7_000}, window.toArray());
+	}
+
+	@Test
+	void growsPastItsInitialCapacity() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 4_096);
+
+		for (long timestamp = 1; timestamp <= 1_000; timestamp++) {
+			assertTrue(window.add(timestamp));
+		}
+		assertEquals(1_000, window.size());
+		for (long timestamp = 1; timestamp <= 1_000; timestamp++) {
+			assertFalse(window.add(timestamp));
+		}
+	}
+
+	@Test
+	void acceptsTimestampsBeyondTheHorizonWithoutTrackingThem() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 100);
+		window.add(100_000);
+
+		assertTrue(window.add(80_000));
+		assertTrue(window.add(80_000));
+		assertEquals(1, window.size());
+	}
+
+	@Test
+	void newerTimestampsPushOldOnesPastTheHorizon() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 100);
+		window.add(1_000);
+		window.add(5_000);
+
+		window.add(12_000);
+
+		assertArrayEquals(new long[]{5_000, 12_000}, window.toArray());
+		assertTrue(window.add(1_000));
+		assertFalse(window.add(5_000));
+	}
+
+	@Test
+	void fullWindowDropsItsOldestTimestamps() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 3);
+		window.add(2_000);
+		window.add(4_000);
+		window.add(6_000);
+
+		assertTrue(window.add(5_000));
+
+		assertArrayEquals(new long[]{4_000, 5_000, 6_000}, window.toArray());
+		// older than everything kept, so it is accepted and not tracked
+		assertTrue(window.add(3_000));
+		assertArrayEquals(new long[]{4_000, 5_000, 6_000}, window.toArray());
+		assertFalse(window.add(4_000));
+	}
+
+	@Test
+	void removedTimestampIsAcceptedAgain() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 100);
+		window.add(1_000);
+		window.add(2_000);
+
+		window.remove(1_000);
+		window.remove(3_000);
+
+		assertArrayEquals(new long[]{2_000}, window.toArray());
+		assertTrue(window.add(1_000));
+		assertFalse(window.add(1_000));
+	}
+
+	@Test
+	void seededWindowRejectsSeededTimestamps() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 100, new long[]{9_000, 3_000, 6_000});
+
+		assertEquals(3, window.size());
+		assertFalse(window.add(3_000));
+		assertFalse(window.add(6_000));
+		assertFalse(window.add(9_000));
+		assertTrue(window.add(4_000));
+	}
+
+	@Test
+	void seedLargerThanTheWindowKeepsTheNewest() {
+		TimestampWindow window = new TimestampWindow(HORIZON_MS, 2, new long[]{1_000, 2_000, 3_000});
+
+		assertArrayEquals(new long[]{2_000, 3_000}, window.toArray());
+	}
+
+	@Test
+	void encodingRoundTrip() {
+		long base = TimestampWindow.toMillis(LocalDateTime.of(2026, 3, 1, 12, 0));
+		long[] timestamps = {base, base + 1, base + 127, base + 128, base + 60_000, base + 21_600_000};
+
+		assertArrayEquals(timestamps, TimestampWindow.decode(TimestampWindow.encode(timestamps)));
+		assertArrayEquals(new long[]{base}, TimestampWindow.decode(TimestampWindow.encode(new long[]{base})));
+		assertArrayEquals(new long[0], TimestampWindow.decode(TimestampWindow.encode(new long[0])));
+		assertArrayEquals(new long[0], TimestampWindow.decode(null));
+	}
+
+	@Test
+	void appendedSuffixExtendsTheEncoding() {
+		long base = TimestampWindow.toMillis(LocalDateTime.of(2026, 3, 1, 12, 0));
+		byte[] stored = TimestampWindow.encode(new long[]{base, base + 1_000});
+
+		byte[] suffix = TimestampWindow.encodeAfter(base + 1_000, new long[]{base + 2_000, base + 200_000});
+		byte[] appended = Arrays.copyOf(stored, stored.length + suffix.length);
+		System.arraycopy(suffix, 0, appended, stored.length, suffix.length);
+
+		assertArrayEquals(new long[]{base, base + 1_000, base + 2_000, base + 200_000}, TimestampWindow.decode(appended));
+		assertEquals(base, TimestampWindow.first(appended));
+		assertEquals(0, TimestampWindow.encodeAfter(base, new long[0]).length);
+	}
+
+	@Test
+	void encodesSecondlyReadingsInTwoBytesEach() {
+		TimestampWindow window = new TimestampWindow(21_600_000, 4_096);
+		for (int i = 0; i < 1_000; i++) {
+			window.add(1_700_000_000_000L + i * 1_000L);
+		}
+
+		byte[] encoded = TimestampWindow.encode(window.toArray());
+
+		assertEquals(8 + 999 * 2, encoded.length);
+		assertArrayEquals(window.toArray(), TimestampWindow.decode(encoded));
+	}
+
+	@Test
+	void convertsAsUtc() {
+		assertEquals(0, TimestampWindow.toMillis(LocalDateTime.of(1970, 1, 1, 0, 0)));
+		assertEquals(86_400_000, TimestampWindow.toMillis(LocalDateTime.of(1970, 1, 2, 0, 0)));
+	}
+
+}
@@ -120,7 +120,9 @@ class DeviceSimulator:
                 body=json.dumps(message),
                 properties=pika.BasicProperties(
                     delivery_mode=2,
-                    content_type='application/json'
+                    content_type='application/json',
+                    # lets the load balancer route without parsing the body
+                    headers={'device_id': int(self.device_id), 'timestamp': timestamp}
                 )
             )
             print(f"✓ [Device {self.device_id}] Sent {measurement} kWh at {timestamp}")
@@ -4,7 +4,7 @@ import { Chart as ChartJS, CategoryScale, LinearScale, PointElement, LineElement
 
 ChartJS.register(CategoryScale, LinearScale, PointElement, LineElement, BarElement, Title, Tooltip, Legend);
 
-const TotalUserConsumptionChart = ({ devices }) => {
+const TotalUserConsumptionChart = ({ userId, devices }) => {
     const [selectedDate, setSelectedDate] = useState(new Date().toISOString().split('T')[0]);
     const [chartType, setChartType] = useState('line');
     const [totalData, setTotalData] = useState(null);
@@ -22,17 +22,12 @@ const TotalUserConsumptionChart = ({ devices }) => {
         try {
             const token = localStorage.getItem('token');
 
-            const results = await Promise.all(
-                devices.map(device =>
-                    fetch(`http://localhost/api/monitoring/devices/${device.deviceId}/consumption/daily?date=${date}`, {
-                        headers: { 'Authorization': `Bearer ${token}`, 'Content-Type': 'application/json' }
-                    })
-                        .then(r => r.ok ? r.json() : null)
-                        .catch(() => null)
-                )
-            );
-
-            const validResults = results.filter(r => r !== null);
+            const response = await fetch(`http://localhost/api/monitoring/users/${userId}/consumption/daily?date=${date}`, {
+                headers: { 'Authorization': `Bearer ${token}`, 'Content-Type': 'application/json' }
+            });
+            const fleet = response.ok ? await response.json() : null;
+
+            const validResults = fleet?.devices ?? [];
             if (!validResults.length) {
                 setError('No consumption data found for this date across all devices. Try another date.');
                 setTotalData(null);
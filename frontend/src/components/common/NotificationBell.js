@@ -3,6 +3,12 @@ import { useAuth } from '../../context/AuthContext';
 import '../../styles/App.css';
 import { useWebSocket } from '../../context/WebSocketContext';
 
+const ANOMALY_TITLES = {
+    SUDDEN_JUMP: 'Sudden Consumption Jump',
+    FLATLINE: 'Meter Not Changing',
+    BASELINE_DEVIATION: 'Unusual Consumption',
+};
+
 const NotificationBell = () => {
     const websocketService = useWebSocket();
     const { user } = useAuth();
@@ -106,19 +112,40 @@ const NotificationBell = () => {
                                     className={`notification-item ${alert.read ? 'read' : 'unread'}`}
                                     onClick={() => markAsRead(index)}
                                 >
-                                    <div className="notification-icon">⚠️</div>
+                                    <div className="notification-icon">{alert.anomalyType ? '🔍' : '⚠️'}</div>
                                     <div className="notification-content">
-                                        <div className="notification-title">
-                                            Overconsumption Alert
-                                        </div>
-                                        <div className="notification-message">
-                                            Device #{alert.deviceId} exceeded limit by{' '}
-                                            {alert.exceededBy?.toFixed(2)} kWh
-                                        </div>
-                                        <div className="notification-details">
-                                            Current: {alert.currentConsumption?.toFixed(2)} kWh |
-                                            Max: {alert.maxConsumption?.toFixed(2)} kWh
-                                        </div>
+                                        {alert.anomalyType ? (
+                                            <>
+                                                <div className="notification-title">
+                                                    {ANOMALY_TITLES[alert.anomalyType] || 'Unusual Consumption'}
+                                                </div>
+                                                <div className="notification-message">{alert.message}</div>
+                                            </>
+                                        ) : (
+                                            <>
+                                                <div className="notification-title">
+                                                    {alert.type === 'STILL_EXCEEDING' ? 'Still Over Limit' : 'Overconsumption Alert'}
+                                                </div>
+                                                <div className="notification-message">
+                                                    {alert.type === 'STILL_EXCEEDING' ? (
+                                                        <>
+                                                            Device #{alert.deviceId} peaked {alert.exceededBy?.toFixed(2)} kWh over limit
+                                                            ({alert.readingsOverLimit} readings)
+                                                        </>
+                                                    ) : (
+                                                        <>
+                                                            Device #{alert.deviceId} exceeded limit by{' '}
+                                                            {alert.exceededBy?.toFixed(2)} kWh
+                                                        </>
+                                                    )}
+                                                </div>
+                                                <div className="notification-details">
+                                                    {alert.rule && alert.rule !== 'READING' && <>Rule: {alert.rule} | </>}
+                                                    Current: {alert.currentConsumption?.toFixed(2)} kWh |
+                                                    Max: {alert.maxConsumption?.toFixed(2)} kWh
+                                                </div>
+                                            </>
+                                        )}
                                         <div className="notification-time">
                                             {new Date(alert.timestamp).toLocaleString()}
                                         </div>
@@ -157,7 +157,7 @@ const ClientDashboard = () => {
                 />
             )}
 
-            {showTotalConsumptionModal && (<TotalConsumptionModal devices={devices} onClose={() => setShowTotalConsumptionModal(false)}/>)}
+            {showTotalConsumptionModal && (<TotalConsumptionModal userId={user?.userId} devices={devices} onClose={() => setShowTotalConsumptionModal(false)}/>)}
 
             <ChatWidget />
         </div>
@@ -241,7 +241,7 @@ const ConsumptionModal = ({ device, onClose }) => {
     );
 };
 
-const TotalConsumptionModal = ({ devices, onClose }) => {
+const TotalConsumptionModal = ({ userId, devices, onClose }) => {
     return (
         <div className="modal-overlay" onClick={onClose}>
             <div className="modal modal-xl" onClick={(e) => e.stopPropagation()}>
@@ -252,7 +252,7 @@ const TotalConsumptionModal = ({ devices, onClose }) => {
                     </div>
                     <button className="modal-close" onClick={onClose}>✕</button>
                 </div>
-                <div className="modal-body"><TotalUserConsumptionChart devices={devices} /></div>
+                <div className="modal-body"><TotalUserConsumptionChart userId={userId} devices={devices} /></div>
                 <div className="modal-footer"><button className="btn btn-primary" onClick={onClose}>Close</button></div>
             </div>
         </div>